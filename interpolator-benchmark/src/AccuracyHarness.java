@@ -0,0 +1,367 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import de.osanj.springinterpolator.SpringConfig;
+import de.osanj.springinterpolator.SpringSystem;
+
+
+/**
+ * Checks solvers of the spring model against golden reference trajectories and reports their error next to their
+ * cost, so speed-oriented solver changes can be judged by their measured accuracy.
+ * <br>
+ * <br>
+ * The references (<code>res/golden_trajectories.csv</code>) are the step responses (u: false -> true, starting at rest)
+ * of the model in <code>matlab/rebuilt_model.slx</code> for a grid of k/d settings, sampled every
+ * {@value #SAMPLE_DT}s of simulation-time. Since the model is a linear ODE of second order with constant input,
+ * they are computed from its closed-form solution in double precision.
+ * <br>
+ * <br>
+ * Usage: <code>java AccuracyHarness [trajectories.csv]</code> or
+ * <code>java AccuracyHarness --export [trajectories.csv]</code> to regenerate the references.
+ */
+public class AccuracyHarness {
+	
+	private static final String DEFAULT_FILE = "res/golden_trajectories.csv";
+	private static final double SAMPLE_DT = 0.04;
+	private static final double SIM_DUR = 5;
+	private static final float[] GRID_K = { 0.5f, 2f, 4.25f, 8f, 12f, 19.5f };
+	private static final float[] GRID_D = { 0.2f, 0.5f, 1f, 3f, 6f, 9.5f };
+	
+	// fixed parameters of the model, see SpringSystem
+	private static final double M = 1, DF = 0.2, KF = 2, DU = 1;
+	
+	
+	public static void main(String[] args) throws IOException {
+		if(args.length > 0 && args[0].equals("--export")){
+			File file = new File(args.length > 1 ? args[1] : DEFAULT_FILE);
+			export(file);
+			System.out.println(">>> exported reference trajectories to " + file);
+			return;
+		}
+		
+		List<Trajectory> references = load(new File(args.length > 0 ? args[0] : DEFAULT_FILE));
+		System.out.println(">>> " + references.size() + " reference trajectories");
+		
+		Solver[] solvers = {
+			new SpringSystemSolver(0.02f),
+			new SpringSystemSolver(0.04f),
+			new SpringSystemSolver(0.08f),
+			new SemiImplicitEulerSolver(0.02f),
+			new SemiImplicitEulerSolver(0.005f),
+		};
+		
+		System.out.printf(Locale.ROOT, "%-28s %12s %12s %14s %10s %12s%n",
+				"solver", "max error", "rms error", "worst (k, d)", "ns/step", "steps/traj");
+		
+		for(Solver solver : solvers){
+			evaluate(solver, references);
+		}
+	}
+	
+	private static void evaluate(Solver solver, List<Trajectory> references){
+		double maxError = 0, sumSquares = 0;
+		long samples = 0;
+		Trajectory worst = null;
+		
+		int stride = solver.stride();
+		
+		for(Trajectory reference : references){
+			solver.reset(reference.k, reference.d);
+			
+			for(int i = stride; i < reference.x.length; i += stride){
+				double error = Math.abs(solver.advance((float) (stride * SAMPLE_DT)) - reference.x[i]);
+				sumSquares += error * error;
+				samples++;
+				
+				if(error > maxError){
+					maxError = error;
+					worst = reference;
+				}
+			}
+		}
+		
+		long stepsPerTrajectory = solver.steps / references.size();
+		
+		System.out.printf(Locale.ROOT, "%-28s %12.3e %12.3e %14s %10.1f %12d%n",
+				solver.name(), maxError, Math.sqrt(sumSquares / samples),
+				"(" + worst.k + ", " + worst.d + ")", measureNanosPerStep(solver, references), stepsPerTrajectory);
+	}
+	
+	private static double measureNanosPerStep(Solver solver, List<Trajectory> references){
+		// warm-up, then timing whole trajectories
+		float sink = 0;
+		
+		for(int round = 0; round < 200; round++){
+			sink += runAll(solver, references);
+		}
+		
+		solver.steps = 0;
+		long start = System.nanoTime();
+		
+		for(int round = 0; round < 200; round++){
+			sink += runAll(solver, references);
+		}
+		
+		long nanos = System.nanoTime() - start;
+		
+		// keeping the results alive, so the computation cannot be eliminated
+		if(sink == Float.MIN_VALUE){
+			System.out.println(sink);
+		}
+		
+		return nanos / (double) solver.steps;
+	}
+	
+	private static float runAll(Solver solver, List<Trajectory> references){
+		float sink = 0;
+		int stride = solver.stride();
+		
+		for(Trajectory reference : references){
+			solver.reset(reference.k, reference.d);
+			
+			for(int i = stride; i < reference.x.length; i += stride){
+				sink += solver.advance((float) (stride * SAMPLE_DT));
+			}
+		}
+		
+		return sink;
+	}
+	
+	/*
+	 * closed-form step response of x'' = -(df + d)/m * x' - (kf + k)/m * x + u * kf/m, x(0) = x'(0) = 0, u = du,
+	 * normalized by the final position xe
+	 */
+	static double exactNormalizedX(double k, double d, double t){
+		double a = (DF + d) / M;
+		double b = (KF + k) / M;
+		double xe = KF / (KF + k) * DU;
+		
+		// deviation from the final position: y = x - xe, y'' + a*y' + b*y = 0, y(0) = -xe, y'(0) = 0
+		double y0 = -xe;
+		double sigma = a / 2;
+		double disc = sigma * sigma - b;
+		double y;
+		
+		if(disc < 0){
+			double omega = Math.sqrt(-disc);
+			y = Math.exp(-sigma * t) * (y0 * Math.cos(omega * t) + sigma * y0 / omega * Math.sin(omega * t));
+			
+		}else if(disc > 0){
+			double root = Math.sqrt(disc);
+			double r1 = -sigma + root;
+			double r2 = -sigma - root;
+			double c1 = -r2 * y0 / (r1 - r2);
+			y = c1 * Math.exp(r1 * t) + (y0 - c1) * Math.exp(r2 * t);
+			
+		}else{
+			y = (y0 + sigma * y0 * t) * Math.exp(-sigma * t);
+		}
+		
+		return (y + xe) / xe;
+	}
+	
+	private static void export(File file) throws IOException {
+		int samples = (int) Math.round(SIM_DUR / SAMPLE_DT);
+		PrintWriter writer = new PrintWriter(new FileWriter(file));
+		
+		try{
+			writer.println("# step response u: false -> true of matlab/rebuilt_model.slx, x normalized by xe, closed-form solution");
+			writer.println("k,d,t,x");
+			
+			for(float k : GRID_K){
+				for(float d : GRID_D){
+					for(int i = 0; i <= samples; i++){
+						double t = i * SAMPLE_DT;
+						writer.printf(Locale.ROOT, "%s,%s,%.2f,%.9f%n", k, d, t, exactNormalizedX(k, d, t));
+					}
+				}
+			}
+		}finally{
+			writer.close();
+		}
+	}
+	
+	private static List<Trajectory> load(File file) throws IOException {
+		List<Trajectory> trajectories = new ArrayList<Trajectory>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		
+		try{
+			List<Double> xs = new ArrayList<Double>();
+			float k = Float.NaN, d = Float.NaN;
+			String line;
+			
+			while((line = reader.readLine()) != null){
+				if(line.startsWith("#") || line.startsWith("k,") || line.isEmpty()){
+					continue;
+				}
+				
+				String[] cols = line.split(",");
+				float lineK = Float.parseFloat(cols[0]);
+				float lineD = Float.parseFloat(cols[1]);
+				
+				if(lineK != k || lineD != d){
+					if(!xs.isEmpty()){
+						trajectories.add(new Trajectory(k, d, xs));
+					}
+					
+					k = lineK;
+					d = lineD;
+					xs.clear();
+				}
+				
+				xs.add(Double.parseDouble(cols[3]));
+			}
+			
+			if(!xs.isEmpty()){
+				trajectories.add(new Trajectory(k, d, xs));
+			}
+		}finally{
+			reader.close();
+		}
+		
+		return trajectories;
+	}
+	
+	
+	private static class Trajectory {
+		
+		final float k, d;
+		final double[] x;
+		
+		Trajectory(float k, float d, List<Double> xs) {
+			this.k = k;
+			this.d = d;
+			this.x = new double[xs.size()];
+			
+			for(int i = 0; i < x.length; i++){
+				x[i] = xs.get(i);
+			}
+		}
+	}
+	
+	/**
+	 * A solver under test. It advances by the sample interval using its own step-size, like SpringInterpolator does
+	 * with each update-cycle.
+	 */
+	private static abstract class Solver {
+		
+		long steps;
+		
+		abstract String name();
+		
+		abstract float stepSize();
+		
+		/**
+		 * Solvers with a step-size larger than the sample interval are compared at every n-th sample only.
+		 */
+		int stride(){
+			return Math.max(1, Math.round(stepSize() / (float) SAMPLE_DT));
+		}
+		
+		abstract void reset(float k, float d);
+		
+		/**
+		 * @param dt	simulation-time to advance
+		 * @return		x normalized by xe after dt
+		 */
+		abstract float advance(float dt);
+	}
+	
+	private static class SpringSystemSolver extends Solver {
+		
+		private final float h;
+		private SpringSystem sys;
+		
+		SpringSystemSolver(float h) {
+			this.h = h;
+		}
+		
+		@Override
+		String name(){
+			return "SpringSystem RK4 h=" + h;
+		}
+		
+		@Override
+		float stepSize(){
+			return h;
+		}
+		
+		@Override
+		void reset(float k, float d){
+			sys = new SpringSystem(new SpringConfig(k, d, 1000f), false);
+			sys.setU(true);
+		}
+		
+		@Override
+		float advance(float dt){
+			float x = sys.getX();
+			
+			// same sub-stepping as SpringInterpolator#onUpdate
+			while(dt > h){
+				x = sys.updateSystem(h);
+				dt -= h;
+				steps++;
+			}
+			
+			if(dt > 1e-6f){
+				x = sys.updateSystem(dt);
+				steps++;
+			}
+			
+			return x / sys.getXe();
+		}
+	}
+	
+	/**
+	 * Symplectic Euler: one evaluation of the ODE per step instead of four.
+	 */
+	private static class SemiImplicitEulerSolver extends Solver {
+		
+		private final float h;
+		private float x, v, a, b, u, xe;
+		
+		SemiImplicitEulerSolver(float h) {
+			this.h = h;
+		}
+		
+		@Override
+		String name(){
+			return "semi-implicit Euler h=" + h;
+		}
+		
+		@Override
+		float stepSize(){
+			return h;
+		}
+		
+		@Override
+		void reset(float k, float d){
+			a = (float) ((DF + d) / M);
+			b = (float) ((KF + k) / M);
+			u = (float) (DU * KF / M);
+			xe = (float) (KF / (KF + k) * DU);
+			x = 0;
+			v = 0;
+		}
+		
+		@Override
+		float advance(float dt){
+			int n = Math.round(dt / h);
+			
+			for(int i = 0; i < n; i++){
+				v += h * (-a * v - b * x + u);
+				x += h * v;
+			}
+			
+			steps += n;
+			return x / xe;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import de.osanj.springinterpolator.OnSpringUpdateListener;
+import de.osanj.springinterpolator.SpringConfig;
+import de.osanj.springinterpolator.SpringInterpolator;
+import de.osanj.springinterpolator.SpringLooper;
+
+
+/**
+ * Measures the retained heap per {@link SpringInterpolator} of a large fleet (idle state, with and without a listener).
+ * Usage: <code>java FootprintReport [fleetSize]</code> (default 100000)
+ */
+public class FootprintReport {
+	
+	public static void main(String[] args) throws InterruptedException {
+		int fleetSize = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		
+		SpringLooper looper = new SpringLooper(60);
+		looper.start();
+		
+		OnSpringUpdateListener listener = new OnSpringUpdateListener() {
+			@Override
+			public void onSpringUpdate(SpringInterpolator interpolator, float interpolatedValue) {
+			}
+			
+			@Override
+			public void onSpringFinalPosition(SpringInterpolator interpolator, float finalInterpolatedValue, boolean finalPosition) {
+			}
+		};
+		
+		System.out.println(">>> fleet of " + fleetSize + " interpolators, threads: " + Thread.activeCount());
+		
+		measure("without listener", looper, fleetSize, null);
+		measure("with one listener", looper, fleetSize, listener);
+		
+		System.out.println(">>> threads: " + Thread.activeCount());
+	}
+	
+	private static void measure(String label, SpringLooper looper, int fleetSize, OnSpringUpdateListener listener)
+			throws InterruptedException {
+		
+		long before = usedHeap();
+		SpringInterpolator[] fleet = new SpringInterpolator[fleetSize];
+		
+		for(int i = 0; i < fleetSize; i++){
+			fleet[i] = new SpringInterpolator(looper, SpringConfig.DEFAULT, false);
+			
+			if(listener != null){
+				fleet[i].addListener(listener);
+			}
+		}
+		
+		// waiting until all of them settled (2s simulation-time ~ 400ms) and left the looper
+		Thread.sleep(2000);
+		
+		long after = usedHeap();
+		System.out.printf("%-20s %6.1f bytes/interpolator (incl. array slot), all idle: %b%n",
+				label, (after - before) / (double) fleetSize, allIdle(fleet));
+	}
+	
+	private static boolean allIdle(SpringInterpolator[] fleet){
+		for(SpringInterpolator interpolator : fleet){
+			if(!interpolator.reachedFinalPositionPermanently()){
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private static long usedHeap(){
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		
+		for(int i = 0; i < 5; i++){
+			System.gc();
+		}
+		
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
@@ -0,0 +1,394 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import de.osanj.springinterpolator.OnSpringUpdateListener;
+import de.osanj.springinterpolator.SpringConfig;
+import de.osanj.springinterpolator.SpringInterpolator;
+import de.osanj.springinterpolator.SpringLooper;
+import de.osanj.springinterpolator.SpringPriority;
+
+
+/**
+ * Headless load generator: creates a fleet of interpolators, stimulates them with a random or burst pattern of
+ * {@link SpringInterpolator#setFinalPosition(boolean) setFinalPosition} calls and reports once per second
+ * <ul>
+ * <li>live threads, process CPU usage</li>
+ * <li>used heap, GC count and time</li>
+ * <li>percentiles of the frame-interval jitter (|actual interval - period|)</li>
+ * <li>fraction of frames which missed their deadline (work not done before the next frame was due)</li>
+ * <li>degradation level of the loopers (see {@link SpringPriority})</li>
+ * </ul>
+ * Usage: <code>java LoadTest [options]</code>
+ * <pre>--count N          interpolators in the fleet (default 10000)
+ *--fps F            update-rate (default 60)
+ *--loopers L        amount of loopers the fleet is spread over (default 1)
+ *--pattern P        "random" (default) or "burst"
+ *--rate R           random: stimulated interpolators per second (default 10% of the fleet)
+ *--burst B          burst: fraction of the fleet stimulated at once (default 0.5)
+ *--interval MS      burst: time between bursts in ms (default 1000)
+ *--seconds S        duration of the run (default 30)
+ *--seed S           seed of the random pattern (default 42)
+ *--low F            fraction of the fleet with priority LOW (default 0)
+ *--hidden F         fraction of the fleet with priority HIDDEN (default 0)
+ * </pre>
+ */
+public class LoadTest {
+	
+	private int count = 10000;
+	private float fps = 60;
+	private int looperCount = 1;
+	private String pattern = "random";
+	private double rate = -1;
+	private double burst = 0.5;
+	private long intervalMillis = 1000;
+	private int seconds = 30;
+	private long seed = 42;
+	private double low = 0;
+	private double hidden = 0;
+	
+	private SpringLooper[] loopers;
+	private SpringInterpolator[] fleet;
+	private FrameRecorder recorder;
+	
+	
+	public static void main(String[] args) throws InterruptedException {
+		LoadTest test = new LoadTest();
+		test.parse(args);
+		test.run();
+	}
+	
+	private void parse(String[] args){
+		for(int i = 0; i + 1 < args.length; i += 2){
+			String value = args[i + 1];
+			
+			switch(args[i]){
+			case "--count":    count = Integer.parseInt(value); break;
+			case "--fps":      fps = Float.parseFloat(value); break;
+			case "--loopers":  looperCount = Integer.parseInt(value); break;
+			case "--pattern":  pattern = value; break;
+			case "--rate":     rate = Double.parseDouble(value); break;
+			case "--burst":    burst = Double.parseDouble(value); break;
+			case "--interval": intervalMillis = Long.parseLong(value); break;
+			case "--seconds":  seconds = Integer.parseInt(value); break;
+			case "--seed":     seed = Long.parseLong(value); break;
+			case "--low":      low = Double.parseDouble(value); break;
+			case "--hidden":   hidden = Double.parseDouble(value); break;
+			default: throw new IllegalArgumentException("unknown option " + args[i]);
+			}
+		}
+		
+		if(rate < 0){
+			rate = count * 0.1;
+		}
+	}
+	
+	private void run() throws InterruptedException {
+		recorder = new FrameRecorder((long) (1e9 / fps));
+		loopers = new SpringLooper[looperCount];
+		
+		for(int i = 0; i < looperCount; i++){
+			loopers[i] = new SpringLooper(fps);
+			loopers[i].addFrameListener(recorder);
+			loopers[i].start();
+		}
+		
+		// a listener doing a little work, like mapping the value to a pixel
+		OnSpringUpdateListener listener = new OnSpringUpdateListener() {
+			volatile int sink;
+			
+			@Override
+			public void onSpringUpdate(SpringInterpolator interpolator, float interpolatedValue) {
+				sink = (int) (interpolatedValue * 100);
+			}
+			
+			@Override
+			public void onSpringFinalPosition(SpringInterpolator interpolator, float finalInterpolatedValue, boolean finalPosition) {
+				sink = (int) (finalInterpolatedValue * 100);
+			}
+		};
+		
+		fleet = new SpringInterpolator[count];
+		
+		for(int i = 0; i < count; i++){
+			fleet[i] = new SpringInterpolator(loopers[i % looperCount], SpringConfig.DEFAULT, false);
+			fleet[i].addListener(listener);
+			
+			if(i < count * hidden){
+				fleet[i].setPriority(SpringPriority.HIDDEN);
+			}else if(i < count * (hidden + low)){
+				fleet[i].setPriority(SpringPriority.LOW);
+			}
+		}
+		
+		System.out.printf(Locale.ROOT, ">>> %d interpolators, %.2f fps, %d looper(s), pattern %s, %ds, %d cpus%n",
+				count, fps, looperCount, pattern, seconds, Runtime.getRuntime().availableProcessors());
+		System.out.printf(Locale.ROOT, "%5s %7s %6s %9s %9s %4s %6s %8s %8s %8s %8s %8s %7s%n", "t[s]", "threads", "cpu%",
+				"heap[MB]", "active", "lod", "gc", "gc[ms]", "p50[us]", "p90[us]", "p99[us]", "max[us]", "missed");
+		
+		Sampler sampler = new Sampler();
+		Random random = new Random(seed);
+		long start = System.nanoTime();
+		long nextReport = start + 1000000000L;
+		long nextBurst = start;
+		double pending = 0;
+		long prevTick = start;
+		
+		while(true){
+			long now = System.nanoTime();
+			
+			if(now - start >= seconds * 1000000000L){
+				break;
+			}
+			
+			if(pattern.equals("burst")){
+				if(now >= nextBurst){
+					stimulate(random, (int) (count * burst));
+					nextBurst += intervalMillis * 1000000L;
+				}
+				
+			}else{
+				pending += rate * (now - prevTick) / 1e9;
+				stimulate(random, (int) pending);
+				pending -= (int) pending;
+			}
+			
+			prevTick = now;
+			
+			if(now >= nextReport){
+				sampler.report((now - start) / 1e9, recorder.drain());
+				nextReport += 1000000000L;
+			}
+			
+			Thread.sleep(5);
+		}
+		
+		System.out.println(">>> total");
+		sampler.total(recorder.total());
+		
+		for(SpringLooper looper : loopers){
+			looper.end();
+		}
+	}
+	
+	private void stimulate(Random random, int amount){
+		for(int i = 0; i < amount; i++){
+			SpringInterpolator interpolator = fleet[random.nextInt(count)];
+			interpolator.setFinalPosition(!interpolator.getFinalPosition());
+		}
+	}
+	
+	private int degradationLevel(){
+		int level = 0;
+		
+		for(SpringLooper looper : loopers){
+			level = Math.max(level, looper.getDegradationLevel());
+		}
+		
+		return level;
+	}
+	
+	private int activeCount(){
+		int active = 0;
+		
+		for(SpringLooper looper : loopers){
+			active += looper.getActiveCount();
+		}
+		
+		return active;
+	}
+	
+	
+	/**
+	 * Collects the frame timings of all loopers.
+	 */
+	private static class FrameRecorder implements SpringLooper.FrameListener {
+		
+		private final long periodNanos;
+		private long[] jitter = new long[1024];
+		private int size;
+		private int missed;
+		private long[] totalJitter = new long[1024];
+		private int totalSize;
+		private long totalMissed;
+		private long[] prevStart = new long[0];
+		private SpringLooper[] seen = new SpringLooper[0];
+		
+		FrameRecorder(long periodNanos) {
+			this.periodNanos = periodNanos;
+		}
+		
+		@Override
+		public synchronized void onFrame(SpringLooper looper, long deadlineNanos, long startNanos, long endNanos) {
+			int index = indexOf(looper);
+			
+			if(prevStart[index] != 0){
+				long value = Math.abs(startNanos - prevStart[index] - periodNanos);
+				
+				if(size == jitter.length){
+					jitter = Arrays.copyOf(jitter, size * 2);
+				}
+				
+				jitter[size++] = value;
+				
+				if(endNanos > deadlineNanos + periodNanos){
+					missed++;
+				}
+			}
+			
+			prevStart[index] = startNanos;
+		}
+		
+		private int indexOf(SpringLooper looper){
+			for(int i = 0; i < seen.length; i++){
+				if(seen[i] == looper){
+					return i;
+				}
+			}
+			
+			seen = Arrays.copyOf(seen, seen.length + 1);
+			prevStart = Arrays.copyOf(prevStart, prevStart.length + 1);
+			seen[seen.length - 1] = looper;
+			return seen.length - 1;
+		}
+		
+		/**
+		 * @return frame statistics since the last call
+		 */
+		synchronized FrameStats drain(){
+			FrameStats stats = new FrameStats(Arrays.copyOf(jitter, size), missed);
+			
+			if(totalSize + size > totalJitter.length){
+				totalJitter = Arrays.copyOf(totalJitter, Math.max(totalJitter.length * 2, totalSize + size));
+			}
+			
+			System.arraycopy(jitter, 0, totalJitter, totalSize, size);
+			totalSize += size;
+			totalMissed += missed;
+			size = 0;
+			missed = 0;
+			
+			return stats;
+		}
+		
+		synchronized FrameStats total(){
+			drain();
+			return new FrameStats(Arrays.copyOf(totalJitter, totalSize), totalMissed);
+		}
+	}
+	
+	private static class FrameStats {
+		
+		final long[] jitter;
+		final long missed;
+		
+		FrameStats(long[] jitter, long missed) {
+			this.jitter = jitter;
+			this.missed = missed;
+			Arrays.sort(jitter);
+		}
+		
+		double percentileMicros(double p){
+			if(jitter.length == 0){
+				return Double.NaN;
+			}
+			
+			int index = (int) Math.ceil(p * jitter.length) - 1;
+			return jitter[Math.max(0, Math.min(jitter.length - 1, index))] / 1e3;
+		}
+		
+		double missedFraction(){
+			return jitter.length == 0 ? 0 : missed / (double) jitter.length;
+		}
+	}
+	
+	/**
+	 * Process metrics via the management beans, as deltas since the previous report.
+	 */
+	private class Sampler {
+		
+		private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		private final long startWall = System.nanoTime();
+		private final long startCpu = processCpuNanos();
+		private final long startGcCount = gcCount();
+		private final long startGcMillis = gcMillis();
+		private long prevWall = startWall;
+		private long prevCpu = startCpu;
+		private long prevGcCount = startGcCount;
+		private long prevGcMillis = startGcMillis;
+		private long maxHeap;
+		
+		void report(double t, FrameStats frames){
+			long wall = System.nanoTime(), cpu = processCpuNanos(), gcCount = gcCount(), gcMillis = gcMillis();
+			long heap = memory.getHeapMemoryUsage().getUsed();
+			maxHeap = Math.max(maxHeap, heap);
+			
+			print(String.format(Locale.ROOT, "%5.0f", t), cpuPercent(cpu - prevCpu, wall - prevWall), heap,
+					gcCount - prevGcCount, gcMillis - prevGcMillis, frames);
+			
+			prevWall = wall;
+			prevCpu = cpu;
+			prevGcCount = gcCount;
+			prevGcMillis = gcMillis;
+		}
+		
+		void total(FrameStats frames){
+			print("all", cpuPercent(processCpuNanos() - startCpu, System.nanoTime() - startWall), maxHeap,
+					gcCount() - startGcCount, gcMillis() - startGcMillis, frames);
+		}
+		
+		private void print(String t, double cpuPercent, long heap, long gcCount, long gcMillis, FrameStats frames){
+			System.out.printf(Locale.ROOT, "%5s %7d %6.1f %9.1f %9d %4d %6d %8d %8.0f %8.0f %8.0f %8.0f %6.2f%%%n",
+					t, threads.getThreadCount(), cpuPercent, heap / 1048576.0, activeCount(), degradationLevel(),
+					gcCount, gcMillis,
+					frames.percentileMicros(0.5), frames.percentileMicros(0.9), frames.percentileMicros(0.99),
+					frames.percentileMicros(1), frames.missedFraction() * 100);
+		}
+		
+		/*
+		 * usage of the whole machine, i.e. 100% ~ all processors busy
+		 */
+		private double cpuPercent(long cpuNanos, long wallNanos){
+			if(cpuNanos < 0 || wallNanos <= 0){
+				return Double.NaN;
+			}
+			
+			return 100.0 * cpuNanos / wallNanos / os.getAvailableProcessors();
+		}
+		
+		private long processCpuNanos(){
+			if(os instanceof com.sun.management.OperatingSystemMXBean){
+				return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+			}
+			
+			return -1;
+		}
+		
+		private long gcCount(){
+			long sum = 0;
+			
+			for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()){
+				sum += Math.max(0, gc.getCollectionCount());
+			}
+			
+			return sum;
+		}
+		
+		private long gcMillis(){
+			long sum = 0;
+			
+			for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()){
+				sum += Math.max(0, gc.getCollectionTime());
+			}
+			
+			return sum;
+		}
+	}
+}
@@ -3,6 +3,8 @@ import java.awt.EventQueue;
 import javax.swing.JFrame;
 
 import de.osanj.springinterpolator.SpringInterpolator;
+import de.osanj.springinterpolator.SpringUpdateFilter;
+import de.osanj.springinterpolator.swing.SwingSpringAdapter;
 
 
 public class ExampleApplication extends JFrame{
@@ -39,8 +41,12 @@ public class ExampleApplication extends JFrame{
         add(demoButton);
         
 		
-		interpolator.addListener(demoChart);
-		interpolator.addListener(demoButton);
+		// listeners are notified on the EDT, both components are repainted together once per frame
+		SwingSpringAdapter adapter = new SwingSpringAdapter();
+		adapter.attach(interpolator, demoChart, demoChart);
+		
+		// the square grows by 100px, so it only needs to be repainted if the value changed by 1/100
+		interpolator.addListener(SpringUpdateFilter.quantized(adapter.wrap(interpolator, demoButton, demoButton), 100));
     }   
     
     public static void main(String[] args) {
@@ -52,9 +52,9 @@ public class ExampleButton extends JPanel implements MouseListener, OnSpringUpda
 	
 	@Override
 	public void onSpringUpdate(SpringInterpolator interpolator, float interpolatedValue) {
+		// called on the EDT, repainting is done by the SwingSpringAdapter
 		squareSize = squareSizeMin + (int) (interpolatedValue * (squareSizeMax - squareSizeMin));
 		updateCoors();
-		repaint();
 	}
 
 	@Override
@@ -49,13 +49,16 @@ public class ExampleChart extends JPanel implements OnSpringUpdateListener{
 	}
 	
 	public void newYValue(float yValue){
+		addYValue(yValue);
+		repaint();
+	}
+	
+	private void addYValue(float yValue){
 		if(yValsLast == yVals.length)
 			yValsLast = 0;
 		
 		yVals[yValsLast] = yValue;
 		yValsLast++;
-		
-		repaint();
 	}
 	
 	@Override
@@ -135,7 +138,8 @@ public class ExampleChart extends JPanel implements OnSpringUpdateListener{
 
 	@Override
 	public void onSpringUpdate(SpringInterpolator interpolator, float interpolatedValue) {
-		newYValue(interpolatedValue);		
+		// called on the EDT, repainting is done by the SwingSpringAdapter
+		addYValue(interpolatedValue);
 	}
 
 	@Override
@@ -0,0 +1,277 @@
+package de.osanj.springinterpolator.swing;
+
+import java.awt.EventQueue;
+import java.awt.Rectangle;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.JComponent;
+import javax.swing.JRootPane;
+import javax.swing.SwingUtilities;
+
+import de.osanj.springinterpolator.OnSpringUpdateListener;
+import de.osanj.springinterpolator.SpringInterpolator;
+import de.osanj.springinterpolator.SpringLooper;
+
+/**
+ * Moves the updates of interpolators onto the Event Dispatch Thread (EDT) in batches. Without it each listener is
+ * called on the looper thread, mutates Swing state off the EDT and triggers its own repaint at an unrelated time.
+ * <br>
+ * <br>
+ * Listeners wrapped by the adapter are notified on the EDT instead: all updates which arrived during a frame of the
+ * looper are applied together in a single {@link EventQueue#invokeLater(Runnable) invokeLater}. If the EDT falls
+ * behind, only the latest value of each interpolator is applied. Afterwards the bounds of all affected components are
+ * merged per root pane and repainted at once, so the listeners don't need to call <code>repaint()</code> themselves.
+ * <br>
+ * <br>
+ * <u>How To Use:</u>
+ * <br>
+ * <pre>SwingSpringAdapter adapter = new SwingSpringAdapter(SpringLooper.getShared(60));
+ *
+ * // button.onSpringUpdate is called on the EDT, button is repainted with the other components of the frame
+ *adapter.attach(interpolator, button, button);
+ *
+ * // filters can be put in front, so suppressed updates don't cause any EDT event at all
+ *interpolator.addListener(SpringUpdateFilter.quantized(adapter.wrap(interpolator, button, button), 100));
+ * </pre>
+ */
+public class SwingSpringAdapter implements SpringLooper.FrameListener {
+	
+	private final SpringLooper looper;
+	private final ConcurrentLinkedQueue<EdtListener> dirty;
+	private final AtomicBoolean scheduled;
+	private final Runnable flush;
+	private volatile boolean disposed;
+	
+	
+	/**
+	 * Adapter batching the updates of the frames of the shared 60fps looper.
+	 */
+	public SwingSpringAdapter() {
+		this(SpringLooper.getShared(60));
+	}
+	
+	/**
+	 * @param looper	looper driving the interpolators, one batch is applied per frame of it
+	 */
+	public SwingSpringAdapter(SpringLooper looper) {
+		this.looper = looper;
+		dirty = new ConcurrentLinkedQueue<EdtListener>();
+		scheduled = new AtomicBoolean(false);
+		
+		flush = new Runnable() {
+			@Override
+			public void run(){
+				scheduled.set(false);
+				flush();
+			}
+		};
+		
+		looper.addFrameListener(this);
+	}
+	
+	/**
+	 * Stops batching per frame of the looper, pending updates are still applied. Wrapped listeners keep forwarding
+	 * their events to the EDT, but each pass is scheduled as soon as an event arrives.
+	 */
+	public void dispose(){
+		disposed = true;
+		looper.removeFrameListener(this);
+		schedule();
+	}
+	
+	/**
+	 * Creates the listener to add to the interpolator. It forwards the events to <code>listener</code> on the EDT and
+	 * repaints <code>component</code> afterwards. The returned listener must only be added to this interpolator,
+	 * possibly behind filters (see {@link #attach attach} to add it directly).
+	 * @param interpolator	interpolator driven by the looper of the adapter
+	 * @param listener		receiver of the events on the EDT
+	 * @param component		component to repaint after the events, <code>null</code> for none
+	 * @return the listener to add to the interpolator
+	 * @throws IllegalArgumentException	if the interpolator is driven by another looper, its events would only be
+	 * applied on frames of an unrelated looper (or never)
+	 */
+	public OnSpringUpdateListener wrap(SpringInterpolator interpolator, OnSpringUpdateListener listener,
+			JComponent component){
+		if(listener == null){
+			throw new NullPointerException("listener must not be null");
+		}
+		
+		if(interpolator.getLooper() != looper){
+			throw new IllegalArgumentException("interpolator is not driven by the looper of the adapter");
+		}
+		
+		return new EdtListener(listener, component);
+	}
+	
+	/**
+	 * Wraps the listener (see {@link #wrap wrap}) and adds it to the interpolator.
+	 * @param interpolator	interpolator driven by the looper of the adapter
+	 * @param listener		receiver of the events on the EDT
+	 * @param component		component to repaint after the events, <code>null</code> for none
+	 * @return the added listener, e.g. to remove it again
+	 * @throws IllegalArgumentException	if the interpolator is driven by another looper
+	 */
+	public OnSpringUpdateListener attach(SpringInterpolator interpolator, OnSpringUpdateListener listener,
+			JComponent component){
+		OnSpringUpdateListener wrapped = wrap(interpolator, listener, component);
+		interpolator.addListener(wrapped);
+		return wrapped;
+	}
+	
+	@Override
+	public void onFrame(SpringLooper looper, long deadlineNanos, long startNanos, long endNanos){
+		if(!dirty.isEmpty()){
+			schedule();
+		}
+	}
+	
+	private void schedule(){
+		// at most one pass in the event queue, updates arriving meanwhile are taken along
+		if(scheduled.compareAndSet(false, true)){
+			EventQueue.invokeLater(flush);
+		}
+	}
+	
+	/*
+	 * on the EDT: applying all pending events, then repainting the merged bounds of the components
+	 */
+	private void flush(){
+		Map<JComponent, Rectangle> regions = new IdentityHashMap<JComponent, Rectangle>();
+		EdtListener listener;
+		
+		while((listener = dirty.poll()) != null){
+			listener.apply();
+			
+			JComponent component = listener.component;
+			
+			if(component != null){
+				JRootPane root = SwingUtilities.getRootPane(component);
+				
+				if(root == null){
+					component.repaint();
+					
+				}else{
+					Rectangle bounds = SwingUtilities.convertRectangle(component,
+							new Rectangle(0, 0, component.getWidth(), component.getHeight()), root);
+					Rectangle region = regions.get(root);
+					
+					if(region == null){
+						regions.put(root, bounds);
+					}else{
+						region.add(bounds);
+					}
+				}
+			}
+		}
+		
+		for(Map.Entry<JComponent, Rectangle> entry : regions.entrySet()){
+			entry.getKey().repaint(entry.getValue());
+		}
+	}
+	
+	
+	/*
+	 * Keeps the latest events of an interpolator until the next pass on the EDT.
+	 */
+	private class EdtListener implements OnSpringUpdateListener {
+		
+		private final OnSpringUpdateListener listener;
+		private final JComponent component;
+		
+		private SpringInterpolator interpolator;     // pending state, guarded by this
+		private boolean updatePending;
+		private float interpolatedValue;
+		private boolean finalPending;
+		private float finalInterpolatedValue;
+		private boolean finalPosition;
+		private boolean finalAfterUpdate;
+		private boolean queued;
+		
+		EdtListener(OnSpringUpdateListener listener, JComponent component) {
+			this.listener = listener;
+			this.component = component;
+		}
+		
+		@Override
+		public void onSpringUpdate(SpringInterpolator interpolator, float interpolatedValue){
+			synchronized(this){
+				this.interpolator = interpolator;
+				this.interpolatedValue = interpolatedValue;
+				updatePending = true;
+				finalAfterUpdate = false;
+			}
+			
+			enqueue();
+		}
+		
+		@Override
+		public void onSpringFinalPosition(SpringInterpolator interpolator, float finalInterpolatedValue, boolean finalPosition){
+			synchronized(this){
+				this.interpolator = interpolator;
+				this.finalInterpolatedValue = finalInterpolatedValue;
+				this.finalPosition = finalPosition;
+				finalPending = true;
+				finalAfterUpdate = true;
+			}
+			
+			enqueue();
+		}
+		
+		private void enqueue(){
+			boolean add;
+			
+			synchronized(this){
+				add = !queued;
+				queued = true;
+			}
+			
+			if(add){
+				dirty.offer(this);
+				
+				// no more frames of the looper to flush it
+				if(disposed){
+					schedule();
+				}
+			}
+		}
+		
+		/*
+		 * on the EDT, keeping the order of update and final event
+		 */
+		void apply(){
+			SpringInterpolator source;
+			boolean update, fin, finalLast;
+			float value, finalValue;
+			boolean position;
+			
+			synchronized(this){
+				source = interpolator;
+				update = updatePending;
+				fin = finalPending;
+				finalLast = finalAfterUpdate;
+				value = interpolatedValue;
+				finalValue = finalInterpolatedValue;
+				position = finalPosition;
+				
+				updatePending = false;
+				finalPending = false;
+				queued = false;
+			}
+			
+			if(fin && !finalLast){
+				listener.onSpringFinalPosition(source, finalValue, position);
+			}
+			
+			if(update){
+				listener.onSpringUpdate(source, value);
+			}
+			
+			if(fin && finalLast){
+				listener.onSpringFinalPosition(source, finalValue, position);
+			}
+		}
+	}
+}
@@ -22,7 +22,7 @@ public interface OnSpringUpdateListener {
 	 * <code>true</code>.
 	 * 
 	 * @param interpolator				reference to the interpolator
-	 * @param finalInterpolatedValue	interpolated value (0 or 1)
+	 * @param finalInterpolatedValue	interpolated value (0 or 1, or the value set via {@link SpringInterpolator#setTarget(float) setTarget})
 	 * @param finalPosition				reached position (false ~ "bottom", true ~ "top")
 	 */
 	public void onSpringFinalPosition(SpringInterpolator interpolator, float finalInterpolatedValue, boolean finalPosition);
@@ -0,0 +1,105 @@
+package de.osanj.springinterpolator;
+
+/**
+ * Immutable set of the customizable parameters of a {@link SpringSystem}: stiffness (k), dampening (d) and the
+ * approximate duration the simulation is mapped to. Since it is immutable, one instance (e.g. one of the presets)
+ * can be shared by any number of interpolators, which keeps each interpolator small. Changing a parameter via the
+ * <code>with*</code> methods creates a new config.
+ * <br>
+ * <br>
+ * <b>Note:</b> The config itself does not check any ranges, the setters of {@link SpringInterpolator} do.
+ */
+public final class SpringConfig {
+	
+	/** Standard curve: k = 4.25, d = 1, approximately 1000ms */
+	public static final SpringConfig DEFAULT = new SpringConfig(4.25f, 1f, 1000f);
+	
+	/** Soft, slow curve without noticeable overshoot: k = 1, d = 3, approximately 1000ms */
+	public static final SpringConfig GENTLE = new SpringConfig(1f, 3f, 1000f);
+	
+	/** Playful curve with a clear overshoot: k = 8, d = 0.5, approximately 1000ms */
+	public static final SpringConfig BOUNCY = new SpringConfig(8f, 0.5f, 1000f);
+	
+	/** Fast, snappy curve: k = 12, d = 4, approximately 500ms */
+	public static final SpringConfig STIFF = new SpringConfig(12f, 4f, 500f);
+	
+	private final float k;
+	private final float d;
+	private final float duration;
+	private final float xe;
+	
+	
+	/**
+	 * @param k				stiffness of the 1st spring
+	 * @param d				dampening of the 1st damper
+	 * @param duration		in milliseconds, realtime which the simulation is mapped to
+	 */
+	public SpringConfig(float k, float d, float duration) {
+		this.k = k;
+		this.d = d;
+		this.duration = duration;
+		
+		// important: final position depends on k
+		this.xe = SpringSystem.computeXe(k);
+	}
+	
+	public float getStiffness(){
+		return k;
+	}
+	
+	public float getDampening(){
+		return d;
+	}
+	
+	public float getApproximateDuration(){
+		return duration;
+	}
+	
+	/**
+	 * @return			final position for x of the system (depends on k)
+	 */
+	public float getXe(){
+		return xe;
+	}
+	
+	public SpringConfig withStiffness(float k){
+		return new SpringConfig(k, d, duration);
+	}
+	
+	public SpringConfig withDampening(float d){
+		return new SpringConfig(k, d, duration);
+	}
+	
+	public SpringConfig withApproximateDuration(float duration){
+		return new SpringConfig(k, d, duration);
+	}
+	
+	@Override
+	public boolean equals(Object obj){
+		if(this == obj){
+			return true;
+		}
+		
+		if(!(obj instanceof SpringConfig)){
+			return false;
+		}
+		
+		SpringConfig other = (SpringConfig) obj;
+		return Float.floatToIntBits(k) == Float.floatToIntBits(other.k)
+				&& Float.floatToIntBits(d) == Float.floatToIntBits(other.d)
+				&& Float.floatToIntBits(duration) == Float.floatToIntBits(other.duration);
+	}
+	
+	@Override
+	public int hashCode(){
+		int hash = Float.floatToIntBits(k);
+		hash = 31 * hash + Float.floatToIntBits(d);
+		hash = 31 * hash + Float.floatToIntBits(duration);
+		return hash;
+	}
+	
+	@Override
+	public String toString(){
+		return "SpringConfig[k=" + k + ", d=" + d + ", duration=" + duration + "ms]";
+	}
+}
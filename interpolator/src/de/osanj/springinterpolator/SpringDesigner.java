@@ -0,0 +1,150 @@
+package de.osanj.springinterpolator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Derives a {@link SpringConfig} from the perceptual properties designers usually ask for: how long the motion
+ * takes until it settles and how far it bounces beyond the final position. The properties are measured exactly like
+ * {@link SpringSweep} does (settled ~ staying within the tolerance of the final position).
+ * <br>
+ * <br>
+ * The overshoot depends on stiffness and dampening only, not on the approximate duration, so for each of a range of
+ * k values the d matching the overshoot is searched. The approximate duration then scales the settle time of each candidate to the
+ * requested one. The candidate whose duration is closest to 1000ms is chosen, since the mapping of the duration is
+ * most reliable for moderate values (see {@link SpringInterpolator#setApproximateDuration(float) setApproximateDuration}).
+ * All values stay within the <code>MIN_*</code>/<code>MAX_*</code> bounds of {@link SpringInterpolator}.
+ * <br>
+ * <br>
+ * Solving takes a few milliseconds, the results are cached (by settle time rounded to 1ms and overshoot rounded
+ * to 0.01%), so repeated requests return instantly.
+ * <br>
+ * <br>
+ * <u>How To Use:</u>
+ * <br>
+ * <pre>// settle within ~600ms, bounce 10% beyond the final position
+ *interpolator.setConfig(SpringDesigner.design(600, 10));
+ * </pre>
+ */
+public final class SpringDesigner {
+	
+	private static final int CANDIDATES_K = 24;       // amount of k values tried, log-spaced
+	private static final int BISECTIONS_D = 24;       // iterations to find d for the overshoot
+	private static final float REFERENCE_DURATION = 1000f;
+	
+	private static final ConcurrentMap<Long, SpringConfig> CACHE = new ConcurrentHashMap<Long, SpringConfig>();
+	
+	private SpringDesigner(){
+	}
+	
+	/**
+	 * The config which comes closest to the requested behaviour. If it cannot be met within the bounds
+	 * (e.g. 100ms with lots of bounce), the nearest achievable config is returned.
+	 * @param settleMillis			real-time in milliseconds until the motion settles (must be positive)
+	 * @param overshootPercent		how far the value exceeds the final position in percent (0 ~ no bounce)
+	 * @return the config
+	 */
+	public static SpringConfig design(float settleMillis, float overshootPercent){
+		if(!(settleMillis > 0) || !(overshootPercent >= 0)){
+			throw new IllegalArgumentException("invalid settle time (" + settleMillis + "ms) or overshoot ("
+					+ overshootPercent + "%)");
+		}
+		
+		int settleKey = Math.round(settleMillis);
+		int overshootKey = Math.round(overshootPercent * 100);
+		Long key = ((long) settleKey << 32) | (overshootKey & 0xffffffffL);
+		
+		SpringConfig config = CACHE.get(key);
+		
+		if(config == null){
+			config = solve(Math.max(1, settleKey), overshootKey / 10000f);
+			SpringConfig previous = CACHE.putIfAbsent(key, config);
+			
+			if(previous != null){
+				config = previous;
+			}
+		}
+		
+		return config;
+	}
+	
+	public static void clearCache(){
+		CACHE.clear();
+	}
+	
+	private static SpringConfig solve(float settleMillis, float overshoot){
+		float minK = SpringInterpolator.MIN_K * SpringSweep.BOUND_MARGIN;
+		float maxK = SpringInterpolator.MAX_K / SpringSweep.BOUND_MARGIN;
+		
+		SpringConfig best = null;
+		double bestScore = Double.MAX_VALUE;
+		SpringSweep.Result probe = new SpringSweep.Result(1, REFERENCE_DURATION);
+		
+		for(int i = 0; i < CANDIDATES_K; i++){
+			float k = (float) (minK * Math.pow(maxK / minK, i / (double) (CANDIDATES_K - 1)));
+			float d = solveDampening(probe, k, overshoot);
+			
+			measure(probe, k, d);
+			float referenceSettle = probe.getSettleMillis(0);
+			
+			if(Float.isNaN(referenceSettle) || referenceSettle <= 0){
+				continue;
+			}
+			
+			// settle time scales linearly with the approximate duration
+			float duration = settleMillis / referenceSettle * REFERENCE_DURATION;
+			float clamped = Math.max(SpringInterpolator.MIN_REAL_DURATION,
+					Math.min(SpringInterpolator.MAX_REAL_DURATION, duration));
+			
+			// primarily the error of overshoot and settle time, then the distance of the duration to 1000ms
+			double overshootError = Math.abs(probe.getOvershoot(0) - overshoot);
+			double settleError = Math.abs(Math.log(clamped / duration));
+			double durationDistance = Math.abs(Math.log(clamped / REFERENCE_DURATION));
+			double score = (overshootError + settleError) * 1000 + durationDistance;
+			
+			if(score < bestScore){
+				bestScore = score;
+				best = new SpringConfig(k, d, clamped);
+			}
+		}
+		
+		return best != null ? best : SpringConfig.DEFAULT;
+	}
+	
+	/*
+	 * the overshoot decreases with increasing dampening -> bisection
+	 */
+	private static float solveDampening(SpringSweep.Result probe, float k, float overshoot){
+		float low = SpringInterpolator.MIN_D * SpringSweep.BOUND_MARGIN;
+		float high = SpringInterpolator.MAX_D / SpringSweep.BOUND_MARGIN;
+		
+		measure(probe, k, low);
+		if(probe.getOvershoot(0) <= overshoot){
+			return low;
+		}
+		
+		measure(probe, k, high);
+		if(probe.getOvershoot(0) >= overshoot){
+			return high;
+		}
+		
+		for(int i = 0; i < BISECTIONS_D; i++){
+			float mid = (low + high) / 2;
+			measure(probe, k, mid);
+			
+			if(probe.getOvershoot(0) > overshoot){
+				low = mid;
+			}else{
+				high = mid;
+			}
+		}
+		
+		return (low + high) / 2;
+	}
+	
+	private static void measure(SpringSweep.Result probe, float k, float d){
+		probe.k[0] = k;
+		probe.d[0] = d;
+		SpringSweep.evaluate(probe, 0);
+	}
+}
@@ -0,0 +1,61 @@
+package de.osanj.springinterpolator;
+
+/**
+ * Interfaces for demand-driven streams of interpolated values. They mirror the contract of
+ * <code>java.util.concurrent.Flow</code> (Reactive Streams) one to one, so a subscriber of a reactive pipeline
+ * can be bridged by simply delegating each method. The library itself stays compatible with Java 7.
+ * 
+ * @see SpringPublisher
+ */
+public final class SpringFlow {
+	
+	private SpringFlow(){
+	}
+	
+	/**
+	 * A producer of items which are only emitted after they have been requested by the {@link Subscriber}.
+	 * @param <T>	type of the published items
+	 */
+	public interface Publisher<T> {
+		
+		/**
+		 * Adds the subscriber. It receives {@link Subscriber#onSubscribe(Subscription) onSubscribe} first and
+		 * afterwards at most as many items as it requested.
+		 * @param subscriber	the subscriber (must not be <code>null</code>)
+		 */
+		public void subscribe(Subscriber<? super T> subscriber);
+	}
+	
+	/**
+	 * A receiver of items. All methods are called serially, never concurrently.
+	 * @param <T>	type of the received items
+	 */
+	public interface Subscriber<T> {
+		
+		public void onSubscribe(Subscription subscription);
+		
+		public void onNext(T item);
+		
+		public void onError(Throwable throwable);
+		
+		public void onComplete();
+	}
+	
+	/**
+	 * The link between a {@link Publisher} and a {@link Subscriber} to signal demand and to cancel.
+	 */
+	public interface Subscription {
+		
+		/**
+		 * Adds <code>n</code> items to the demand. Non-positive values cancel the subscription with an
+		 * {@link IllegalArgumentException} passed to {@link Subscriber#onError(Throwable) onError}.
+		 * @param n		amount of additionally requested items ({@link Long#MAX_VALUE} ~ unbounded)
+		 */
+		public void request(long n);
+		
+		/**
+		 * Stops the delivery of items. There might still be items in flight.
+		 */
+		public void cancel();
+	}
+}
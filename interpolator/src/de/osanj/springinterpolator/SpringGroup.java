@@ -0,0 +1,195 @@
+package de.osanj.springinterpolator;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Stimulates many interpolators at once. Instead of calling
+ * {@link SpringInterpolator#setFinalPosition(boolean) setFinalPosition} on each member from the calling thread, a
+ * single task is handed to the {@link SpringLooper} of the group, which applies the stimulus at the next frame
+ * boundary. So all members start in the same frame (or after their delay according to a {@link StaggerPolicy})
+ * in a deterministic order: by delay, then by their position in the group. A new stimulus replaces a staggered one
+ * which is still in progress, its remaining members are stimulated by the new one only.
+ * <br>
+ * <br>
+ * All members have to be driven by the looper of the group.
+ * <br>
+ * <br>
+ * <u>How To Use:</u>
+ * <br>
+ * <pre>SpringGroup group = new SpringGroup(SpringLooper.getShared(60));
+ *for(SpringInterpolator interpolator : itemInterpolators){
+ *	group.add(interpolator);
+ *}
+ *
+ *group.setFinalPosition(true, StaggerPolicy.linear(30)); // each item starts 30ms after the previous one
+ * </pre>
+ */
+public class SpringGroup {
+	
+	private final SpringLooper looper;
+	private volatile SpringInterpolator[] members;       // copy-on-write
+	private volatile StimulusTask stimulus;              // latest stimulus (written under this), older ones stop
+	
+	
+	/**
+	 * @param looper	looper driving all members
+	 */
+	public SpringGroup(SpringLooper looper) {
+		if(looper == null){
+			throw new NullPointerException("looper must not be null");
+		}
+		
+		this.looper = looper;
+		members = new SpringInterpolator[0];
+	}
+	
+	public SpringLooper getLooper(){
+		return looper;
+	}
+	
+	/**
+	 * Appends an interpolator to the group.
+	 * @param interpolator	member driven by the looper of the group
+	 * @throws IllegalArgumentException	if the interpolator is driven by another looper
+	 */
+	public synchronized void add(SpringInterpolator interpolator){
+		if(interpolator.getLooper() != looper){
+			throw new IllegalArgumentException("interpolator is not driven by the looper of the group");
+		}
+		
+		SpringInterpolator[] updated = Arrays.copyOf(members, members.length + 1);
+		updated[members.length] = interpolator;
+		members = updated;
+	}
+	
+	public synchronized void remove(SpringInterpolator interpolator){
+		for(int i = 0; i < members.length; i++){
+			if(members[i] == interpolator){
+				SpringInterpolator[] updated = new SpringInterpolator[members.length - 1];
+				System.arraycopy(members, 0, updated, 0, i);
+				System.arraycopy(members, i + 1, updated, i, members.length - i - 1);
+				members = updated;
+				return;
+			}
+		}
+	}
+	
+	public int size(){
+		return members.length;
+	}
+	
+	/**
+	 * Sets the final position of all members at the next frame boundary.
+	 * @param top	final position (false ~ "bottom", true ~ "top")
+	 */
+	public void setFinalPosition(boolean top){
+		setFinalPosition(top, StaggerPolicy.NONE);
+	}
+	
+	/**
+	 * Sets the final position of all members, starting at the next frame boundary and delaying each member
+	 * according to the policy. Members are stimulated in the first frame after their delay passed.
+	 * @param top		final position (false ~ "bottom", true ~ "top")
+	 * @param policy	delay of each member
+	 */
+	public void setFinalPosition(boolean top, StaggerPolicy policy){
+		SpringInterpolator[] current = members;
+		
+		if(current.length > 0){
+			StimulusTask task = new StimulusTask(current, top, policy);
+			
+			synchronized(this){
+				stimulus = task;
+			}
+			
+			looper.post(task);
+		}
+	}
+	
+	
+	private class StimulusTask implements SpringLooper.FrameTask {
+		
+		private final SpringInterpolator[] members;  // sorted by delay, stable
+		private final long[] delays;
+		private final boolean top;
+		private long startNanos;
+		private int next;
+		
+		StimulusTask(SpringInterpolator[] members, boolean top, StaggerPolicy policy) {
+			int count = members.length;
+			long[] keys = new long[count];
+			boolean sorted = true;
+			
+			for(int i = 0; i < count; i++){
+				keys[i] = policy.delayNanos(i, count);
+				sorted &= i == 0 || keys[i - 1] <= keys[i];
+			}
+			
+			if(sorted){
+				this.members = members;
+				this.delays = keys;
+				
+			}else{
+				// ordering by delay, members with the same delay keep their order in the group
+				Integer[] order = new Integer[count];
+				
+				for(int i = 0; i < count; i++){
+					order[i] = i;
+				}
+				
+				final long[] unsorted = keys;
+				Arrays.sort(order, new Comparator<Integer>() {
+					@Override
+					public int compare(Integer a, Integer b){
+						int c = Long.compare(unsorted[a], unsorted[b]);
+						return c != 0 ? c : Integer.compare(a, b);
+					}
+				});
+				
+				this.members = new SpringInterpolator[count];
+				this.delays = new long[count];
+				
+				for(int i = 0; i < count; i++){
+					this.members[i] = members[order[i]];
+					this.delays[i] = unsorted[order[i]];
+				}
+			}
+			
+			this.top = top;
+			next = -1;
+		}
+		
+		@Override
+		public boolean onFrame(long frameNanos){
+			if(stimulus != this){
+				// replaced by a newer stimulus, which is run after this one (tasks run in the order of posting)
+				return false;
+			}
+			
+			if(next < 0){
+				startNanos = frameNanos;
+				next = 0;
+			}
+			
+			long elapsed = frameNanos - startNanos;
+			
+			while(next < members.length && delays[next] <= elapsed){
+				members[next].setFinalPosition(top);
+				next++;
+			}
+			
+			if(next < members.length){
+				return true;
+			}
+			
+			synchronized(SpringGroup.this){
+				if(stimulus == this){
+					stimulus = null;
+				}
+			}
+			
+			return false;
+		}
+	}
+}
@@ -1,7 +1,6 @@
 package de.osanj.springinterpolator;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * The SpringInterpolator is a rebuilt of Facebook's Rebound library.
@@ -90,21 +89,24 @@ public class SpringInterpolator {
 	public static final float MAX_REAL_DURATION = 5000; // maximal value for the real-time-mapping (in ms)
 	public static final float MIN_REAL_DURATION = 100;  // minimal value for the real-time-mapping (in ms)
 	
-	private static final float H = 0.02f;                // step-size
-	private static final float SIM_DUR = 5f;             // in s, for transforming from realtime (1000ms) to simulationtime (5s)
-	private static final float OBS_TOL = 0.01f;          // tolerance for determining if end position is (permanently) reached
-	private static final int OBS_COUNT = (int) (2 / H);  // how many values consecutively have to be within the tolerance
-	private float duration = 1000f;                      // in ms, realtime which the simulation is mapped to
+	static final float H = 0.02f;                        // step-size
+	static final float SIM_DUR = 5f;                     // in s, for transforming from realtime (1000ms) to simulationtime (5s)
+	static final float OBS_TOL = 0.01f;                  // tolerance for determining if end position is (permanently) reached
+	static final int OBS_COUNT = (int) (2 / H);          // how many values consecutively have to be within the tolerance
 	
-	private SpringSystem sys;
-	private boolean steadyState;
-	private boolean[] tolerances;
-	private int tolerancesPos;	
-	
-	private int updateRateFps;
-	private UpdateLoop looper;
-	private Thread looperThread;
-	private List<OnSpringUpdateListener> listeners;
+	/*
+	 * Kept deliberately small, since applications might create hundreds of thousands of interpolators:
+	 * curve and duration live in a (shared) SpringConfig, the tolerance observation is a counter,
+	 * listeners are only allocated when added and the updates are driven by a shared SpringLooper.
+	 */
+	private final SpringSystem sys;
+	private final SpringLooper looper;                   // null if stepped manually (see SpringPublisher)
+	private volatile boolean steadyState;
+	private boolean active;                              // registered at the looper, guarded by sys
+	private int tolerancesCount;                         // how many values consecutively have been within the tolerance
+	private volatile OnSpringUpdateListener[] listeners; // copy-on-write, null if there are none
+	private volatile SpringPriority priority;
+	private long skippedNanos;                           // real-time of frames skipped by the looper (degraded)
 	
 	
 	/**
@@ -116,128 +118,281 @@ public class SpringInterpolator {
 	
 	/**
 	 * SpringInterpolator from start position "bottom".
-	 * @param updateRateFps	update-period in FramesPerSecond
+	 * @param updateRateFps	update-period in FramesPerSecond (fractional rates like 59.94 are supported)
 	 */
-	public SpringInterpolator(int updateRateFps) {
+	public SpringInterpolator(float updateRateFps) {
 		this(updateRateFps, false);
 	}
 	
 	/**
-	 * Set both start position and update-rate.
+	 * Set both start position and update-rate. All interpolators with the same update-rate share one
+	 * {@link SpringLooper#getShared(float) looper}.
 	 * @param updateRateFps		update-period in FramesPerSecond
 	 * @param currentPosition	starting position of the system
 	 */
-	public SpringInterpolator(int updateRateFps, boolean currentPosition) {
-		this.updateRateFps = updateRateFps;
+	public SpringInterpolator(float updateRateFps, boolean currentPosition) {
+		this(SpringLooper.getShared(updateRateFps), SpringConfig.DEFAULT, currentPosition);
+	}
+	
+	/**
+	 * SpringInterpolator driven by the given looper, e.g. to separate a large fleet of interpolators from the
+	 * shared loopers.
+	 * @param looper			looper computing the updates (must not be <code>null</code>)
+	 * @param config			initial curve and duration, presets can be shared by any number of interpolators
+	 * @param currentPosition	starting position of the system
+	 */
+	public SpringInterpolator(SpringLooper looper, SpringConfig config, boolean currentPosition) {
+		this(config, currentPosition, checkLooper(looper));
+	}
+	
+	private SpringInterpolator(SpringConfig config, boolean currentPosition, SpringLooper looper) {
+		this.looper = looper;
 		
-		sys = new SpringSystem(currentPosition);
-		listeners = new ArrayList<OnSpringUpdateListener>();
-		steadyState = false;
+		sys = new SpringSystem(config, currentPosition);
+		tolerancesCount = 0;
+		priority = SpringPriority.NORMAL;
 		
-		tolerances = new boolean[OBS_COUNT];
-		resetToleranceObservation();
-		tolerancesPos = 0;
+		// settling in the starting position, then firing onSpringFinalPosition
+		synchronized(sys){
+			wake();
+		}
+	}
+	
+	/**
+	 * Interpolator without a looper, which is only stepped by the caller (e.g. {@link SpringPublisher} on subscriber demand).
+	 * @param currentPosition	starting position of the system
+	 * @return the interpolator
+	 */
+	static SpringInterpolator createManual(boolean currentPosition){
+		return new SpringInterpolator(SpringConfig.DEFAULT, currentPosition, null);
+	}
+	
+	private static SpringLooper checkLooper(SpringLooper looper){
+		if(looper == null){
+			throw new NullPointerException("looper must not be null");
+		}
 		
-		// starting thread with runnable that calls onUpdate all 1000/updateRateFps milliseconds
-		startLooper();
+		return looper;
 	}
 	
-	private void onUpdate(long pauseMillis){
+	/**
+	 * Computes the next value and notifies the listeners.
+	 * @param elapsedNanos	real-time since the last computation
+	 * @return whether further updates are expected (false if the idle state is reached)
+	 */
+	boolean onUpdate(long elapsedNanos){
 		// physical model/setup is "moving" between 1 to 6 seconds
 		// a usual duration for an animation is 1000ms
 		// -> mapping curve from 5s to 1000ms (standard)
 		
-		if(!steadyState){
+		float interpolatedValue;
+		boolean reachedSteadyState;
+		
+		synchronized(sys){
+			if(steadyState){
+				active = false;
+				return false;
+			}
 			
-			// pauseMillis is the time since the last computation
+			// elapsedNanos is the time since the last computation
 			// mapping from real-time to simulation-time, e.g. 16ms (realtime) -> 0.08s (simtime for spring system)
-			float mappedTimeStep = pauseMillis / duration * SIM_DUR;
-			
+			float mappedTimeStep = elapsedNanos / 1e6f / sys.getConfig().getApproximateDuration() * SIM_DUR;
 			
-			synchronized(sys){
-				// computing spring-system with step-size H
-				while(mappedTimeStep > H){
-					updateToleranceObservation(sys.updateSystem(H));
-					mappedTimeStep -= H;
-				}
-				
-				// computing spring-system with remaining step-size
-				updateToleranceObservation(sys.updateSystem(mappedTimeStep));
+			// computing spring-system with step-size H
+			while(mappedTimeStep > H){
+				updateToleranceObservation(sys.updateSystem(H));
+				mappedTimeStep -= H;
 			}
 			
+			// computing spring-system with remaining step-size
+			updateToleranceObservation(sys.updateSystem(mappedTimeStep));
 			
-			if(!isWithinTolerance()){
-				dispatchUpdate(getCurrentInterpolatedValue());
-				
-			}else{
-				// stop updates if steady-state is reached
+			// stop updates if steady-state is reached
+			reachedSteadyState = isWithinTolerance();
+			
+			if(reachedSteadyState){
 				steadyState = true;
-				dispatchFinalUpdate();
+				active = false;
+			}
+			
+			interpolatedValue = getCurrentInterpolatedValue();
+		}
+		
+		if(!reachedSteadyState){
+			dispatchUpdate(interpolatedValue);
+			
+		}else{
+			dispatchFinalUpdate();
+		}
+		
+		return !reachedSteadyState;
+	}
+	
+	/**
+	 * Called by the looper each frame, updates only every n-th frame if the looper is degraded.
+	 * @param elapsedNanos	real-time since the last frame
+	 * @param divisor		update every n-th frame, 0 to pause
+	 * @param frame			running frame number of the looper
+	 * @return whether further updates are expected (false if the idle state is reached)
+	 */
+	boolean onFrame(long elapsedNanos, int divisor, int frame){
+		/*
+		 * each interpolator has its own phase (identity hash), otherwise interpolators activated in the same frame
+		 * (e.g. by a SpringGroup) would all update in the same frame and skip the ones in between together
+		 */
+		if(divisor == 0 || (divisor > 1 && ((frame + System.identityHashCode(this)) & Integer.MAX_VALUE) % divisor != 0)){
+			// paused interpolators freeze, skipped time of degraded ones is caught up with the next update
+			if(divisor != 0){
+				skippedNanos += elapsedNanos;
 			}
+			
+			synchronized(sys){
+				if(steadyState){
+					active = false;
+					skippedNanos = 0;
+					return false;
+				}
+			}
+			
+			return true;
 		}
+		
+		long nanos = skippedNanos + elapsedNanos;
+		skippedNanos = 0;
+		
+		return onUpdate(nanos);
 	}
 	
-	private void startLooper(){
-		resetToleranceObservation();
+	/*
+	 * Leaves the idle state and registers at the looper (if not already), needs to hold the lock of sys.
+	 * Has to be called before the stimulus is applied to the system.
+	 */
+	private void wake(){
+		if(steadyState){
+			// continuing from the value reported to the listeners (the target), not from the residue of the motion
+			sys.setTarget(sys.getTarget(), true);
+			
+			// the idle state requires OBS_COUNT new values within the tolerance, also for small stimulations
+			tolerancesCount = 0;
+		}
+		
+		steadyState = false;
 		
-		looper = new UpdateLoop(this, updateRateFps);
-		looperThread = new Thread(looper);
-		looperThread.start();
+		if(!active && looper != null){
+			active = true;
+			looper.activate(this);
+		}
 	}
-
+	
 	private void dispatchUpdate(float interpolatedValue){
-		for(OnSpringUpdateListener listener : listeners)
-			listener.onSpringUpdate(this, interpolatedValue);
+		OnSpringUpdateListener[] current = listeners;
+		
+		if(current != null){
+			for(OnSpringUpdateListener listener : current){
+				try{
+					listener.onSpringUpdate(this, interpolatedValue);
+				}catch(RuntimeException e){
+					reportListenerException(e);
+				}
+			}
+		}
 	}
 	
 	private void dispatchFinalUpdate(){
 		boolean finalPosition = sys.getU();
 		float finalInterpolatedValue = getCurrentInterpolatedValue();
+		OnSpringUpdateListener[] current = listeners;
 		
-		for(OnSpringUpdateListener listener : listeners){
-			listener.onSpringFinalPosition(this, finalInterpolatedValue, finalPosition);
+		if(current != null){
+			for(OnSpringUpdateListener listener : current){
+				try{
+					listener.onSpringFinalPosition(this, finalInterpolatedValue, finalPosition);
+				}catch(RuntimeException e){
+					reportListenerException(e);
+				}
+			}
 		}
 	}
 	
+	/*
+	 * A failing listener must neither stop the other listeners nor the (shared) looper thread.
+	 */
+	private void reportListenerException(RuntimeException e){
+		Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+	}
+	
 	private void updateToleranceObservation(float x){
-		float dest = sys.getU() ? 1 : 0;
+		float dest = sys.getTarget();
 		float diff = Math.abs(dest - x / sys.getXe());
 		
-		tolerances[tolerancesPos] = diff <= OBS_TOL;
-		tolerancesPos++;
-		
-		if(tolerancesPos >= OBS_COUNT){
-			tolerancesPos = 0;
-		}
-	}
-	
-	private void resetToleranceObservation(){
-		for(int i = 0 ; i < OBS_COUNT; i++){
-			tolerances[i] = false;
+		// counting consecutive values within the tolerance, equivalent to a ring of the last OBS_COUNT values
+		if(diff <= OBS_TOL){
+			if(tolerancesCount < OBS_COUNT){
+				tolerancesCount++;
+			}
+			
+		}else{
+			tolerancesCount = 0;
 		}
 	}
 	
 	private boolean isWithinTolerance(){
-		for(int i = 0 ; i < OBS_COUNT; i++){
-			if(!tolerances[i]){
-				return false;
-			}
-		}
-		
-		return true;
+		return tolerancesCount >= OBS_COUNT;
 	}
 	
+	/**
+	 * Adds a listener which is notified on every update. To be notified only on meaningful changes
+	 * wrap it in a {@link SpringUpdateFilter}.
+	 * @param listener	receiver of the updates
+	 */
 	public void addListener(OnSpringUpdateListener listener){
-		listeners.add(listener);
+		synchronized(sys){
+			OnSpringUpdateListener[] current = listeners;
+			
+			if(current == null){
+				listeners = new OnSpringUpdateListener[]{ listener };
+				
+			}else{
+				OnSpringUpdateListener[] updated = Arrays.copyOf(current, current.length + 1);
+				updated[current.length] = listener;
+				listeners = updated;
+			}
+		}
 	}
 	
+	/**
+	 * Removes the listener, also if it was added wrapped in a {@link SpringUpdateFilter}.
+	 * @param listener	listener (or filter) to remove
+	 */
 	public void removeListener(OnSpringUpdateListener listener){
-		listeners.remove(listener);
+		synchronized(sys){
+			OnSpringUpdateListener[] current = listeners;
+			
+			if(current != null){
+				for(int i = 0; i < current.length; i++){
+					if(current[i].equals(listener) || (current[i] instanceof SpringUpdateFilter
+							&& ((SpringUpdateFilter) current[i]).getListener().equals(listener))){
+						if(current.length == 1){
+							listeners = null;
+							
+						}else{
+							OnSpringUpdateListener[] updated = new OnSpringUpdateListener[current.length - 1];
+							System.arraycopy(current, 0, updated, 0, i);
+							System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+							listeners = updated;
+						}
+						
+						return;
+					}
+				}
+			}
+		}
 	}
 	
 	public void removeAllListeners(){
-		for(int i = 0, len = listeners.size(); i < len; i++) {
-			listeners.remove(i);
+		synchronized(sys){
+			listeners = null;
 		}
 	}
 
@@ -250,12 +405,52 @@ public class SpringInterpolator {
 			return sys.getX() / sys.getXe(); // normalize x
 		
 		}else{
-			if(sys.getU()){
-				return 1;
-			}else{
-				return 0;
-			}
+			return sys.getTarget();
+		}
+	}
+	
+	/**
+	 * Current normed velocity of the model in interpolated units per second (real-time).
+	 * @return current velocity of the interpolation, 0 if the model is idle
+	 */
+	public float getCurrentVelocity(){
+		if(reachedFinalPositionPermanently()){
+			return 0;
 		}
+		
+		// mapping from simulation-time back to real-time
+		return sys.getV() / sys.getXe() * SIM_DUR * 1000f / sys.getConfig().getApproximateDuration();
+	}
+	
+	/**
+	 * Update-rate of the interpolator.
+	 * @return update-rate in FramesPerSecond, 0 if the interpolator is stepped manually (see {@link SpringPublisher})
+	 */
+	public float getUpdateRateFps(){
+		return looper != null ? looper.getUpdateRateFps() : 0;
+	}
+	
+	/**
+	 * Sets the importance of the interpolator when its looper is overloaded, see {@link SpringPriority}.
+	 * @param priority		priority (default {@link SpringPriority#NORMAL NORMAL})
+	 */
+	public void setPriority(SpringPriority priority){
+		if(priority == null){
+			throw new NullPointerException("priority must not be null");
+		}
+		
+		this.priority = priority;
+	}
+	
+	public SpringPriority getPriority(){
+		return priority;
+	}
+	
+	/**
+	 * @return the looper driving this interpolator, <code>null</code> if it is stepped manually
+	 */
+	public SpringLooper getLooper(){
+		return looper;
 	}
 	
 	/**
@@ -306,25 +501,82 @@ public class SpringInterpolator {
 	 * @param skipMotion	to instantly reach idle-state
 	 */
 	public void setFinalPosition(boolean top, boolean skipMotion){
-		if(top != sys.getU()){
-			
-			synchronized(sys){
-				sys.setU(top, skipMotion);
-			}
-			
-			if(skipMotion){
-				if(!reachedFinalPositionPermanently()){
+		setTarget(top ? 1 : 0, skipMotion);
+	}
+	
+	/**
+	 * Continuous alternative to {@link #setFinalPosition(boolean) setFinalPosition}: the model moves towards an
+	 * arbitrary interpolated value. Position and velocity stay continuous, so the target can be changed on every frame,
+	 * e.g. to follow a drag gesture or live data with one long-lived interpolator (this does not allocate
+	 * while the interpolator is moving).
+	 * <br>
+	 * {@link #getFinalPosition() getFinalPosition} reports whether the target is closer to "top" than to "bottom".
+	 * @param target	final interpolated value (0 ~ "bottom", 1 ~ "top")
+	 * @throws IllegalArgumentException	if the target is NaN or infinite
+	 */
+	public void setTarget(float target){
+		setTarget(target, false);
+	}
+	
+	/**
+	 * See {@link #setTarget(float) setTarget}.
+	 * @param target		final interpolated value (0 ~ "bottom", 1 ~ "top")
+	 * @param skipMotion	to instantly reach idle-state
+	 * @throws IllegalArgumentException	if the target is NaN or infinite
+	 */
+	public void setTarget(float target, boolean skipMotion){
+		checkFinite(target, "target");
+		
+		synchronized(sys){
+			if(target != sys.getTarget()){
+				if(skipMotion){
+					sys.setTarget(target, true);
 					steadyState = true;
-				}
-				
-			}else{
-				if(reachedFinalPositionPermanently()){
-					steadyState = false;
+					
+				}else{
+					wake();
+					sys.setTarget(target, false);
 				}
 			}
 		}
 	}
-
+	
+	/**
+	 * @return current final interpolated value (0 ~ "bottom", 1 ~ "top", or as set by {@link #setTarget(float) setTarget})
+	 */
+	public float getTarget(){
+		return sys.getTarget();
+	}
+	
+	/**
+	 * Injects a velocity, e.g. the release velocity of a fling gesture. The motion continues from the current
+	 * position with this velocity towards the current target.
+	 * @param velocity	in interpolated units per second (real-time), see {@link #getCurrentVelocity() getCurrentVelocity}
+	 * @throws IllegalArgumentException	if the velocity is NaN or infinite
+	 */
+	public void setVelocity(float velocity){
+		checkFinite(velocity, "velocity");
+		
+		synchronized(sys){
+			wake();
+			
+			// the fling must not be cut off by values observed before it
+			tolerancesCount = 0;
+			
+			// mapping from real-time to simulation-time
+			sys.setV(velocity * sys.getXe() * sys.getConfig().getApproximateDuration() / (SIM_DUR * 1000f));
+		}
+	}
+	
+	/*
+	 * The model would never reach the tolerance and keep being stepped forever
+	 */
+	private static void checkFinite(float value, String name){
+		if(Float.isNaN(value) || Float.isInfinite(value)){
+			throw new IllegalArgumentException(name + " must be finite: " + value);
+		}
+	}
+	
 	/**
 	 * The "real" duration of the simulation (using the standard values) is about 5 seconds.
 	 * Since the simulation-time is independent of the real-time (<i>you could calculate the first value today,
@@ -338,12 +590,14 @@ public class SpringInterpolator {
 	 */
 	public void setApproximateDuration(float duration){
 		if(duration >= MIN_REAL_DURATION && duration <= MAX_REAL_DURATION) {
-			this.duration = duration;
+			synchronized(sys){
+				sys.setConfig(sys.getConfig().withApproximateDuration(duration));
+			}
 		}
 	}
 	
 	public float getApproximateDuration(){
-		return duration;
+		return sys.getConfig().getApproximateDuration();
 	}
 	
 	/**
@@ -388,52 +642,21 @@ public class SpringInterpolator {
 		return sys.getD();
 	}
 	
-	
-	public class UpdateLoop implements Runnable {
-		
-		private SpringInterpolator interpolator;
-		private long pauseMillis;
-		private boolean run;
-		
-		
-		public UpdateLoop(SpringInterpolator interpolator, int updateRateFps) {
-			this.interpolator = interpolator;
-			pauseMillis = (long) (1000 / updateRateFps);
-			
-			run = true;
-		}
-		
-		public void end(){
-			run = false;
-		}
-		
-		@Override
-		public void run(){
-			long prevMillis = System.currentTimeMillis() - pauseMillis;
-			long sleptMillis;
-			long tempMillis;
-			
-			/*
-			 * calculating the actually slept time to correctly compute next value, consider
-			 * 
-			 * 		x---0->x
-			 * 
-			 * with x being a time step and 0 the correct one for the first x. That means:
-			 * The thread slept longer than he should have had. So not the ideal (pauseMillis), but the real (sleptMillis)
-			 * timestep is passed back for the next update...
-			 */
-			
-			while(run){
-				tempMillis =  System.currentTimeMillis();
-				sleptMillis = tempMillis - prevMillis;
-				prevMillis = tempMillis;
-				
-				try {
-					Thread.sleep(pauseMillis);
-				} catch (InterruptedException e) {}
-				
-				interpolator.onUpdate(sleptMillis);
-			}
+	/**
+	 * Replaces stiffness, dampening and approximate duration at once. Interpolators of a large fleet should share
+	 * one config (e.g. {@link SpringConfig#DEFAULT}) instead of setting the values one by one, since every setter
+	 * creates a new config.
+	 * <br>
+	 * <b>Note:</b> Unlike the single setters this does not check the ranges of the values.
+	 * @param config	new curve and duration
+	 */
+	public void setConfig(SpringConfig config){
+		synchronized(sys){
+			sys.setConfig(config);
 		}
 	}
+	
+	public SpringConfig getConfig(){
+		return sys.getConfig();
+	}
 }
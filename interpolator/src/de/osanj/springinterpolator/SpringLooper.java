@@ -0,0 +1,425 @@
+package de.osanj.springinterpolator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the updates of any number of {@link SpringInterpolator}s with a single thread. Only interpolators which are
+ * actually moving are stepped, idle ones cost nothing but their memory. Interpolators created with an update-rate
+ * (e.g. <code>new SpringInterpolator(60)</code>) share the {@link #getShared(float) shared looper} of that rate.
+ * <br>
+ * <br>
+ * Frames are paced against absolute deadlines (t0 + n * period) with {@link LockSupport#parkNanos(long) parkNanos},
+ * optionally followed by yielding until the deadline (see {@link #setSpinYieldTail(long) setSpinYieldTail}).
+ * The listeners of the interpolators are notified on the looper thread, so they should return quickly.
+ * <br>
+ * <br>
+ * If the updates of a frame repeatedly exceed the {@link #setFrameBudget(long) frame budget}, the looper degrades
+ * gracefully: interpolators with a lower {@link SpringPriority} are updated less often or paused, one level at a time.
+ * Once the load dropped to less than half of the budget for a while, the levels are restored again.
+ */
+public class SpringLooper implements Runnable {
+	
+	private static final Map<Float, SpringLooper> SHARED = new HashMap<Float, SpringLooper>();
+	
+	private final float updateRateFps;
+	private final boolean shared;
+	private final long periodNanos;
+	private volatile long spinNanos;
+	private volatile boolean run;
+	private Thread thread;
+	
+	private final ConcurrentLinkedQueue<SpringInterpolator> activations;
+	private SpringInterpolator[] active;                  // only accessed by the looper thread
+	private volatile int activeCount;
+	private volatile FrameListener[] frameListeners;      // copy-on-write, null if there are none
+	private final ConcurrentLinkedQueue<FrameTask> postedTasks;
+	private final List<FrameTask> tasks;                  // only accessed by the looper thread
+	
+	private static final int ESCALATE_WINDOW = 8;         // frames considered for raising the degradation level
+	private static final int ESCALATE_FRAMES = 3;         // frames over budget within the window to raise it
+	private static final int RELAX_FRAMES = 60;           // consecutive frames under half the budget to lower it
+	private volatile long budgetNanos;
+	private volatile int degradationLevel;
+	private int overBudgetWindow;                         // bit i set if the frame i frames ago was over budget
+	private int underBudgetFrames;
+	private int frame;                                    // running frame number, only accessed by the looper thread
+	
+	
+	/**
+	 * The looper shared by all interpolators with the given update-rate. It is started when it is first requested
+	 * and runs as long as the application, it cannot be {@link #end() ended}.
+	 * @param updateRateFps		update-period in FramesPerSecond
+	 * @return the running looper
+	 */
+	public static SpringLooper getShared(float updateRateFps){
+		synchronized(SHARED){
+			SpringLooper looper = SHARED.get(updateRateFps);
+			
+			if(looper == null){
+				looper = new SpringLooper(updateRateFps, true);
+				looper.start();
+				SHARED.put(updateRateFps, looper);
+			}
+			
+			return looper;
+		}
+	}
+	
+	/**
+	 * A separate looper, it needs to be {@link #start() started}.
+	 * @param updateRateFps		update-period in FramesPerSecond (fractional rates like 59.94 are supported)
+	 */
+	public SpringLooper(float updateRateFps) {
+		this(updateRateFps, false);
+	}
+	
+	private SpringLooper(float updateRateFps, boolean shared) {
+		if(!(updateRateFps > 0)){
+			throw new IllegalArgumentException("updateRateFps must be positive: " + updateRateFps);
+		}
+		
+		this.updateRateFps = updateRateFps;
+		this.shared = shared;
+		periodNanos = (long) (1e9 / updateRateFps);
+		spinNanos = 0;
+		budgetNanos = periodNanos * 3 / 4;
+		degradationLevel = 0;
+		
+		activations = new ConcurrentLinkedQueue<SpringInterpolator>();
+		postedTasks = new ConcurrentLinkedQueue<FrameTask>();
+		tasks = new ArrayList<FrameTask>();
+		active = new SpringInterpolator[16];
+		activeCount = 0;
+	}
+	
+	/**
+	 * Starts the (daemon) thread of the looper.
+	 */
+	public synchronized void start(){
+		if(thread == null){
+			run = true;
+			thread = new Thread(this, "SpringLooper-" + updateRateFps + "fps");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+	
+	/**
+	 * Stops the thread after the current frame. Interpolators driven by this looper will not move anymore.
+	 * @throws IllegalStateException	if this is a {@link #getShared(float) shared looper}, it drives interpolators
+	 * of unrelated code, which keep referencing it
+	 */
+	public synchronized void end(){
+		if(shared){
+			throw new IllegalStateException("shared loopers cannot be ended");
+		}
+		
+		run = false;
+	}
+	
+	public float getUpdateRateFps(){
+		return updateRateFps;
+	}
+	
+	/**
+	 * Parking usually wakes up a bit late (timer slack), so optionally the last part of the wait for each frame can be
+	 * spent yielding instead, which hits the deadline with sub-millisecond precision at the cost of some CPU time.
+	 * @param spinNanos		length of the yielding tail before each deadline in nanoseconds (0 to disable, default)
+	 */
+	public void setSpinYieldTail(long spinNanos){
+		if(spinNanos >= 0){
+			this.spinNanos = spinNanos;
+		}
+	}
+	
+	public long getSpinYieldTail(){
+		return spinNanos;
+	}
+	
+	/**
+	 * Sets the time the updates of a frame (including the listeners of the interpolators) may take before the looper
+	 * starts degrading interpolators with lower priority. It defaults to 75% of the update-period.
+	 * @param budgetNanos	budget per frame in nanoseconds, 0 to never degrade
+	 */
+	public void setFrameBudget(long budgetNanos){
+		if(budgetNanos >= 0){
+			this.budgetNanos = budgetNanos;
+		}
+	}
+	
+	public long getFrameBudget(){
+		return budgetNanos;
+	}
+	
+	/**
+	 * @return			current degradation level, 0 if not overloaded (see {@link SpringPriority})
+	 */
+	public int getDegradationLevel(){
+		return degradationLevel;
+	}
+	
+	/**
+	 * @return			amount of interpolators which are still moving after the last frame
+	 */
+	public int getActiveCount(){
+		return activeCount;
+	}
+	
+	/**
+	 * Adds a listener which is notified on the looper thread after each frame.
+	 * @param listener	receiver of the frame timings
+	 */
+	public synchronized void addFrameListener(FrameListener listener){
+		FrameListener[] current = frameListeners;
+		
+		if(current == null){
+			frameListeners = new FrameListener[]{ listener };
+			
+		}else{
+			FrameListener[] updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = listener;
+			frameListeners = updated;
+		}
+	}
+	
+	public synchronized void removeFrameListener(FrameListener listener){
+		FrameListener[] current = frameListeners;
+		
+		if(current != null){
+			for(int i = 0; i < current.length; i++){
+				if(current[i].equals(listener)){
+					if(current.length == 1){
+						frameListeners = null;
+						
+					}else{
+						FrameListener[] updated = new FrameListener[current.length - 1];
+						System.arraycopy(current, 0, updated, 0, i);
+						System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+						frameListeners = updated;
+					}
+					
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Runs the task on the looper thread at the beginning of the next frame, before any interpolator is updated.
+	 * Interpolators stimulated by the task are updated in the same frame. The task is repeated each frame
+	 * as long as it returns <code>true</code>.
+	 * @param task	task to run
+	 */
+	public void post(FrameTask task){
+		postedTasks.offer(task);
+	}
+	
+	/**
+	 * Registers an interpolator which left its idle state, it is stepped from the next frame on until
+	 * {@link SpringInterpolator#onUpdate(long) onUpdate} reports the idle state again.
+	 */
+	void activate(SpringInterpolator interpolator){
+		activations.offer(interpolator);
+	}
+	
+	@Override
+	public void run(){
+		long deadline = System.nanoTime();
+		long prevNanos = deadline;
+		long nowNanos;
+		
+		/*
+		 * pacing against absolute deadlines (t0 + n * period) instead of sleeping a fixed pause after each update,
+		 * so the time spent computing and the oversleeping of each wait do not add up:
+		 * 
+		 * 		|--x---|--x---|-x----|--x---|
+		 * 
+		 * with | being the deadlines and x the actual updates. Still the real elapsed time (not the ideal period)
+		 * is passed for the next update...
+		 */
+		
+		while(run){
+			deadline += periodNanos;
+			waitUntil(deadline);
+			
+			nowNanos = System.nanoTime();
+			runTasks(nowNanos);
+			step(nowNanos - prevNanos);
+			prevNanos = nowNanos;
+			
+			govern(System.nanoTime() - nowNanos);
+			
+			dispatchFrame(deadline, nowNanos);
+			
+			// fell behind by more than a whole frame (e.g. gc pause), re-anchoring instead of catching up with a burst
+			if(nowNanos - deadline > periodNanos){
+				deadline = nowNanos;
+			}
+		}
+	}
+	
+	private void runTasks(long frameNanos){
+		FrameTask task;
+		
+		while((task = postedTasks.poll()) != null){
+			tasks.add(task);
+		}
+		
+		// running in the order of posting, removing the finished ones
+		int kept = 0;
+		
+		for(int i = 0, len = tasks.size(); i < len; i++){
+			task = tasks.get(i);
+			boolean repeat = false;
+			
+			try{
+				repeat = task.onFrame(frameNanos);
+			}catch(RuntimeException e){
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+			}
+			
+			if(repeat){
+				tasks.set(kept++, task);
+			}
+		}
+		
+		tasks.subList(kept, tasks.size()).clear();
+	}
+	
+	private void step(long elapsedNanos){
+		SpringInterpolator interpolator;
+		int count = activeCount;
+		
+		// adding the interpolators stimulated since the last frame
+		while((interpolator = activations.poll()) != null){
+			if(count == active.length){
+				active = Arrays.copyOf(active, count * 2);
+			}
+			
+			active[count++] = interpolator;
+		}
+		
+		// stepping and removing the ones which reached their idle state (keeping the order)
+		int level = degradationLevel;
+		int kept = 0;
+		frame++;
+		
+		for(int i = 0; i < count; i++){
+			interpolator = active[i];
+			int divisor = level == 0 ? 1 : interpolator.getPriority().divisor(level);
+			
+			if(interpolator.onFrame(elapsedNanos, divisor, frame)){
+				active[kept++] = interpolator;
+			}
+		}
+		
+		Arrays.fill(active, kept, count, null);
+		activeCount = kept;
+	}
+	
+	/*
+	 * Raises the degradation level quickly if over budget, lowers it slowly (hysteresis), one level at a time.
+	 * Raising counts the frames over budget within a window instead of consecutive ones, so alternating
+	 * heavy and light frames (e.g. degraded interpolators updating in bursts) are not overlooked
+	 */
+	private void govern(long workNanos){
+		long budget = budgetNanos;
+		int level = degradationLevel;
+		
+		if(budget == 0){
+			level = 0;
+			overBudgetWindow = 0;
+			
+		}else{
+			boolean overBudget = workNanos > budget;
+			overBudgetWindow = ((overBudgetWindow << 1) | (overBudget ? 1 : 0)) & ((1 << ESCALATE_WINDOW) - 1);
+			
+			if(Integer.bitCount(overBudgetWindow) >= ESCALATE_FRAMES && level < SpringPriority.MAX_LEVEL){
+				level++;
+				overBudgetWindow = 0;
+				underBudgetFrames = 0;
+				
+			}else if(workNanos < budget / 2){
+				if(++underBudgetFrames >= RELAX_FRAMES && level > 0){
+					level--;
+					underBudgetFrames = 0;
+				}
+				
+			}else{
+				underBudgetFrames = 0;
+			}
+		}
+		
+		if(level != degradationLevel){
+			degradationLevel = level;
+		}
+	}
+	
+	private void dispatchFrame(long deadline, long startNanos){
+		FrameListener[] current = frameListeners;
+		
+		if(current != null){
+			long endNanos = System.nanoTime();
+			
+			for(FrameListener listener : current){
+				try{
+					listener.onFrame(this, deadline, startNanos, endNanos);
+				}catch(RuntimeException e){
+					Thread thread = Thread.currentThread();
+					thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+				}
+			}
+		}
+	}
+	
+	private void waitUntil(long deadline){
+		long remaining;
+		
+		while((remaining = deadline - System.nanoTime()) > 0){
+			long spin = spinNanos;
+			
+			// parkNanos may return early (spuriously or interrupted), so the remaining time is always re-checked
+			if(remaining > spin){
+				LockSupport.parkNanos(remaining - spin);
+			}else{
+				Thread.yield();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Receives the timing of each frame of a looper, e.g. to measure its jitter.
+	 */
+	public interface FrameListener {
+		
+		/**
+		 * Called on the looper thread after all interpolators of the frame were updated. All times are
+		 * {@link System#nanoTime()} values.
+		 * @param looper			the looper
+		 * @param deadlineNanos		time the frame was scheduled for
+		 * @param startNanos		time the frame actually started
+		 * @param endNanos			time all updates (including the listeners of the interpolators) were done
+		 */
+		public void onFrame(SpringLooper looper, long deadlineNanos, long startNanos, long endNanos);
+	}
+	
+	/**
+	 * A task running on the looper thread at frame boundaries, see {@link SpringLooper#post(FrameTask) post}.
+	 */
+	public interface FrameTask {
+		
+		/**
+		 * @param frameNanos		start of the current frame ({@link System#nanoTime()})
+		 * @return whether the task is to be run again in the next frame
+		 */
+		public boolean onFrame(long frameNanos);
+	}
+}
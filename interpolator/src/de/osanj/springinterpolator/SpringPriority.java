@@ -0,0 +1,48 @@
+package de.osanj.springinterpolator;
+
+/**
+ * Importance of an interpolator when its {@link SpringLooper} is overloaded. If the updates of a frame take longer
+ * than the {@link SpringLooper#setFrameBudget(long) frame budget}, the looper raises its degradation level and updates
+ * less important interpolators less often (their motion stays correct, just with fewer frames) or pauses them.
+ * When the load drops, the full update-rate is restored.
+ * <br>
+ * <br>
+ * Update-rate relative to the looper per degradation level (0 ~ not overloaded):
+ * <pre>level      0     1     2       3
+ *HIGH       1     1     1       1
+ *NORMAL     1     1     1       1/2
+ *LOW        1     1/2   1/4     1/4
+ *HIDDEN     1     1/4   paused  paused
+ * </pre>
+ */
+public enum SpringPriority {
+	
+	/** Never degraded, e.g. the element the user is interacting with */
+	HIGH(1, 1, 1, 1),
+	
+	/** Default, only degraded under heavy load */
+	NORMAL(1, 1, 1, 2),
+	
+	/** Degraded early, e.g. decorative animations */
+	LOW(1, 2, 4, 4),
+	
+	/** Not visible (e.g. off-screen), degraded first and paused under heavy load */
+	HIDDEN(1, 4, 0, 0);
+	
+	static final int MAX_LEVEL = 3;
+	
+	private final int[] divisors;
+	
+	
+	private SpringPriority(int... divisors) {
+		this.divisors = divisors;
+	}
+	
+	/**
+	 * @param level		degradation level of the looper
+	 * @return an update every n-th frame, 0 if paused
+	 */
+	int divisor(int level){
+		return divisors[level];
+	}
+}
@@ -0,0 +1,178 @@
+package de.osanj.springinterpolator;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the values of a {@link SpringInterpolator} as a demand-driven stream of {@link SpringSample}s.
+ * Unlike a regular interpolator there is no update-loop: the model is only stepped (by one frame of
+ * 1000/updateRateFps milliseconds) when the subscriber has requested an item. Hence a slow consumer slows down the
+ * animation instead of missing values. The stream completes as soon as the model reaches its idle state
+ * (see {@link OnSpringUpdateListener#onSpringFinalPosition onSpringFinalPosition}).
+ * <br>
+ * <br>
+ * The publisher is unicast and can only be subscribed once. Frames are computed on the thread calling
+ * {@link SpringFlow.Subscription#request(long) request}.
+ * <br>
+ * <br>
+ * <u>How To Use:</u>
+ * <br>
+ * <pre>SpringPublisher publisher = new SpringPublisher(60);
+ *publisher.getInterpolator().setFinalPosition(true);
+ *publisher.subscribe(renderer); // renderer requests one sample per rendered frame
+ * </pre>
+ */
+public class SpringPublisher implements SpringFlow.Publisher<SpringSample> {
+	
+	private final SpringInterpolator interpolator;
+	private final long frameNanos;
+	private final AtomicBoolean subscribed;
+	
+	
+	/**
+	 * Publisher with an interpolator from start position "bottom".
+	 * @param updateRateFps		frames per second of simulated time
+	 */
+	public SpringPublisher(float updateRateFps) {
+		this(updateRateFps, false);
+	}
+	
+	/**
+	 * @param updateRateFps		frames per second of simulated time
+	 * @param currentPosition	starting position of the system
+	 * @throws IllegalArgumentException	if the update-rate is not positive
+	 */
+	public SpringPublisher(float updateRateFps, boolean currentPosition) {
+		if(!(updateRateFps > 0)){
+			throw new IllegalArgumentException("updateRateFps must be positive: " + updateRateFps);
+		}
+		
+		interpolator = SpringInterpolator.createManual(currentPosition);
+		frameNanos = (long) (1e9 / updateRateFps);
+		subscribed = new AtomicBoolean(false);
+	}
+	
+	/**
+	 * The interpolator used to compute the samples. Use it to customize the curve and to stimulate the system.
+	 * It has no update-loop of its own, so listeners added to it are notified on the requesting thread.
+	 * @return the underlying interpolator
+	 */
+	public SpringInterpolator getInterpolator(){
+		return interpolator;
+	}
+	
+	@Override
+	public void subscribe(SpringFlow.Subscriber<? super SpringSample> subscriber){
+		if(subscriber == null){
+			throw new NullPointerException("subscriber must not be null");
+		}
+		
+		if(!subscribed.compareAndSet(false, true)){
+			FrameSubscription rejected = new FrameSubscription(subscriber);
+			rejected.cancelled = true;
+			subscriber.onSubscribe(rejected);
+			subscriber.onError(new IllegalStateException("SpringPublisher supports only a single subscriber"));
+			return;
+		}
+		
+		subscriber.onSubscribe(new FrameSubscription(subscriber));
+	}
+	
+	
+	private class FrameSubscription implements SpringFlow.Subscription {
+		
+		private final SpringFlow.Subscriber<? super SpringSample> subscriber;
+		private final AtomicLong requested;
+		private final AtomicInteger wip;
+		private volatile boolean cancelled;
+		private volatile Throwable error;
+		private boolean done;
+		private long frame;
+		
+		
+		FrameSubscription(SpringFlow.Subscriber<? super SpringSample> subscriber) {
+			this.subscriber = subscriber;
+			requested = new AtomicLong(0);
+			wip = new AtomicInteger(0);
+		}
+		
+		@Override
+		public void request(long n){
+			if(n <= 0){
+				error = new IllegalArgumentException("non-positive request: " + n);
+				
+			}else{
+				// adding demand, capped at Long.MAX_VALUE (~ unbounded)
+				long current, next;
+				do{
+					current = requested.get();
+					next = current + n;
+					if(next < 0){
+						next = Long.MAX_VALUE;
+					}
+				}while(!requested.compareAndSet(current, next));
+			}
+			
+			drain();
+		}
+		
+		@Override
+		public void cancel(){
+			cancelled = true;
+		}
+		
+		/*
+		 * Emits as many frames as requested. Only one thread at a time is draining, a request from another thread
+		 * (or a reentrant one from onNext) just increases wip so the draining thread takes another round.
+		 */
+		private void drain(){
+			if(wip.getAndIncrement() != 0){
+				return;
+			}
+			
+			int missed = 1;
+			
+			do{
+				while(!cancelled && !done){
+					if(error != null){
+						done = true;
+						subscriber.onError(error);
+						break;
+					}
+					
+					long r = requested.get();
+					
+					if(r == 0){
+						break;
+					}
+					
+					emitFrame();
+					
+					if(r != Long.MAX_VALUE){
+						requested.decrementAndGet();
+					}
+				}
+				
+				missed = wip.addAndGet(-missed);
+			}while(missed != 0);
+		}
+		
+		private void emitFrame(){
+			// the model only moves when a value is actually requested
+			interpolator.onUpdate(frameNanos);
+			frame++;
+			
+			boolean last = interpolator.reachedFinalPositionPermanently();
+			SpringSample sample = new SpringSample(frame, interpolator.getCurrentInterpolatedValue(),
+					interpolator.getCurrentVelocity(), interpolator.getFinalPosition(), last);
+			
+			subscriber.onNext(sample);
+			
+			if(last && !cancelled){
+				done = true;
+				subscriber.onComplete();
+			}
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package de.osanj.springinterpolator;
+
+/**
+ * A single frame emitted by {@link SpringPublisher}. Immutable.
+ */
+public final class SpringSample {
+	
+	private final long frame;
+	private final float interpolatedValue;
+	private final float velocity;
+	private final boolean finalPosition;
+	private final boolean last;
+	
+	
+	public SpringSample(long frame, float interpolatedValue, float velocity, boolean finalPosition, boolean last) {
+		this.frame = frame;
+		this.interpolatedValue = interpolatedValue;
+		this.velocity = velocity;
+		this.finalPosition = finalPosition;
+		this.last = last;
+	}
+	
+	/**
+	 * @return			index of the frame, starting with 1 for the first emitted sample
+	 */
+	public long getFrame(){
+		return frame;
+	}
+	
+	/**
+	 * @return			interpolated value (usually something between/around 0 and 1)
+	 */
+	public float getInterpolatedValue(){
+		return interpolatedValue;
+	}
+	
+	/**
+	 * @return			velocity in interpolated units per second (real-time)
+	 */
+	public float getVelocity(){
+		return velocity;
+	}
+	
+	/**
+	 * @return			final position the model is moving to (false ~ "bottom", true ~ "top")
+	 */
+	public boolean getFinalPosition(){
+		return finalPosition;
+	}
+	
+	/**
+	 * @return			true if this is the sample of the idle state, i.e. the stream completes after it
+	 */
+	public boolean isLast(){
+		return last;
+	}
+	
+	@Override
+	public String toString(){
+		return "SpringSample[frame=" + frame + ", value=" + interpolatedValue + ", velocity=" + velocity
+				+ ", finalPosition=" + finalPosition + ", last=" + last + "]";
+	}
+}
@@ -0,0 +1,264 @@
+package de.osanj.springinterpolator;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Headless evaluation of a dense grid of stiffness (k) and dampening (d) values, e.g. to pick a curve without trial
+ * and error. For each point the step response ("bottom" to "top") is simulated exactly like
+ * {@link SpringInterpolator} does and the perceptual properties are collected in a {@link Result} table.
+ * The points are evaluated in parallel on a {@link ForkJoinPool}.
+ * <br>
+ * <br>
+ * <u>How To Use:</u>
+ * <br>
+ * <pre>SpringSweep.Result result = SpringSweep.run(100, 100, 1000f); // 10k points within MIN_K..MAX_K x MIN_D..MAX_D
+ *result.writeCsv(new FileWriter("sweep.csv"));
+ * </pre>
+ */
+public final class SpringSweep {
+	
+	static final float MAX_SIM_TIME = 120f;       // in s, simulation-time after which a point counts as not settling
+	static final float BOUND_MARGIN = 1.001f;     // SpringInterpolator's setters exclude the bounds of k and d
+	private static final int SPLIT_THRESHOLD = 32; // points evaluated by one task without further splitting
+	
+	private SpringSweep(){
+	}
+	
+	/**
+	 * Sweeps the whole allowed range, {@link SpringInterpolator#MIN_K MIN_K}..{@link SpringInterpolator#MAX_K MAX_K}
+	 * and {@link SpringInterpolator#MIN_D MIN_D}..{@link SpringInterpolator#MAX_D MAX_D}, with a new pool using all
+	 * available processors. The bounds are slightly inset (by 0.1%), since
+	 * {@link SpringInterpolator#setStiffness(float) setStiffness} and
+	 * {@link SpringInterpolator#setDampening(float) setDampening} exclude them, so every row can be applied.
+	 * @param stepsK		amount of k values (at least 2)
+	 * @param stepsD		amount of d values (at least 2)
+	 * @param duration		in milliseconds, approximate duration the simulation is mapped to
+	 * @return the evaluated grid
+	 */
+	public static Result run(int stepsK, int stepsD, float duration){
+		ForkJoinPool pool = new ForkJoinPool();
+		
+		try{
+			return run(SpringInterpolator.MIN_K * BOUND_MARGIN, SpringInterpolator.MAX_K / BOUND_MARGIN, stepsK,
+					SpringInterpolator.MIN_D * BOUND_MARGIN, SpringInterpolator.MAX_D / BOUND_MARGIN, stepsD, duration, pool);
+		}finally{
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Sweeps an evenly spaced grid (including the bounds). Points on the bounds of the allowed range can only be
+	 * applied with {@link SpringInterpolator#setConfig setConfig}.
+	 * @param minK			smallest k
+	 * @param maxK			largest k
+	 * @param stepsK		amount of k values (at least 2)
+	 * @param minD			smallest d
+	 * @param maxD			largest d
+	 * @param stepsD		amount of d values (at least 2)
+	 * @param duration		in milliseconds, approximate duration the simulation is mapped to
+	 * @param pool			pool evaluating the points
+	 * @return the evaluated grid
+	 */
+	public static Result run(float minK, float maxK, int stepsK, float minD, float maxD, int stepsD,
+			float duration, ForkJoinPool pool){
+		
+		if(stepsK < 2 || stepsD < 2){
+			throw new IllegalArgumentException("at least 2 steps per axis are required");
+		}
+		
+		Result result = new Result(stepsK * stepsD, duration);
+		
+		for(int i = 0; i < stepsK; i++){
+			for(int j = 0; j < stepsD; j++){
+				int index = i * stepsD + j;
+				result.k[index] = minK + (maxK - minK) * i / (stepsK - 1);
+				result.d[index] = minD + (maxD - minD) * j / (stepsD - 1);
+			}
+		}
+		
+		pool.invoke(new SweepTask(result, 0, result.size()));
+		return result;
+	}
+	
+	/**
+	 * Simulates the step response of a single point and stores its properties in the result.
+	 */
+	static void evaluate(Result result, int index){
+		SpringSystem sys = new SpringSystem(new SpringConfig(result.k[index], result.d[index], result.duration), false);
+		sys.setU(true);
+		
+		float xe = sys.getXe();
+		float peak = 0;
+		float prevDiff = -1;
+		int crossings = 0;
+		int steps = 0;
+		int tolerancesCount = 0;
+		float settledSince = Float.NaN;
+		float t = 0;
+		
+		// same step-size and tolerance observation as SpringInterpolator#onUpdate
+		while(t < MAX_SIM_TIME && tolerancesCount < SpringInterpolator.OBS_COUNT){
+			float x = sys.updateSystem(SpringInterpolator.H) / xe;
+			t += SpringInterpolator.H;
+			steps++;
+			
+			float diff = x - 1;
+			
+			if(x > peak){
+				peak = x;
+			}
+			
+			if((diff > 0) != (prevDiff > 0) && diff != 0){
+				crossings++;
+			}
+			
+			if(diff != 0){
+				prevDiff = diff;
+			}
+			
+			if(Math.abs(diff) <= SpringInterpolator.OBS_TOL){
+				if(tolerancesCount == 0){
+					settledSince = t;
+				}
+				
+				tolerancesCount++;
+				
+			}else{
+				tolerancesCount = 0;
+			}
+		}
+		
+		boolean settled = tolerancesCount >= SpringInterpolator.OBS_COUNT;
+		
+		result.overshoot[index] = Math.max(0, peak - 1);
+		result.oscillations[index] = crossings;
+		result.settleMillis[index] = settled ? toRealMillis(settledSince, result.duration) : Float.NaN;
+		result.substeps[index] = steps;
+	}
+	
+	/**
+	 * Mapping from simulation-time to real-time, e.g. 5s (simtime) -> 1000ms (realtime).
+	 */
+	static float toRealMillis(float simTime, float duration){
+		return simTime / SpringInterpolator.SIM_DUR * duration;
+	}
+	
+	
+	private static class SweepTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Result result;
+		private final int from, to;
+		
+		SweepTask(Result result, int from, int to) {
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute(){
+			if(to - from <= SPLIT_THRESHOLD){
+				for(int i = from; i < to; i++){
+					evaluate(result, i);
+				}
+				
+			}else{
+				int mid = (from + to) >>> 1;
+				invokeAll(new SweepTask(result, from, mid), new SweepTask(result, mid, to));
+			}
+		}
+	}
+	
+	/**
+	 * Table of the evaluated points, stored column-wise in primitive arrays. The point at index
+	 * <code>i * stepsD + j</code> belongs to the i-th k and the j-th d value.
+	 */
+	public static final class Result {
+		
+		private final float duration;
+		final float[] k;
+		final float[] d;
+		final float[] overshoot;
+		final int[] oscillations;
+		final float[] settleMillis;
+		final int[] substeps;
+		
+		
+		Result(int size, float duration) {
+			this.duration = duration;
+			k = new float[size];
+			d = new float[size];
+			overshoot = new float[size];
+			oscillations = new int[size];
+			settleMillis = new float[size];
+			substeps = new int[size];
+		}
+		
+		public int size(){
+			return k.length;
+		}
+		
+		/**
+		 * @return			in milliseconds, approximate duration the simulation was mapped to
+		 */
+		public float getApproximateDuration(){
+			return duration;
+		}
+		
+		public float getStiffness(int index){
+			return k[index];
+		}
+		
+		public float getDampening(int index){
+			return d[index];
+		}
+		
+		/**
+		 * @return			how far the value exceeded the final position (0.1 ~ 10%), 0 if it did not
+		 */
+		public float getOvershoot(int index){
+			return overshoot[index];
+		}
+		
+		/**
+		 * @return			how often the value passed the final position
+		 */
+		public int getOscillations(int index){
+			return oscillations[index];
+		}
+		
+		/**
+		 * @return			real-time in milliseconds until the value stayed within the tolerance of the final position,
+		 * 					NaN if it did not settle within {@value SpringSweep#MAX_SIM_TIME}s of simulation-time
+		 */
+		public float getSettleMillis(int index){
+			return settleMillis[index];
+		}
+		
+		/**
+		 * @return			amount of solver steps until the idle state was detected
+		 */
+		public int getSubsteps(int index){
+			return substeps[index];
+		}
+		
+		/**
+		 * Writes the table as CSV with a header line, lines are separated by <code>\n</code> on all platforms.
+		 * @param out		destination, it is not closed
+		 * @throws IOException	if writing fails
+		 */
+		public void writeCsv(Appendable out) throws IOException {
+			out.append("k,d,overshoot,oscillations,settle_ms,substeps\n");
+			
+			for(int i = 0; i < size(); i++){
+				out.append(String.format(Locale.ROOT, "%.4f,%.4f,%.6f,%d,%.1f,%d\n",
+						k[i], d[i], overshoot[i], oscillations[i], settleMillis[i], substeps[i]));
+			}
+		}
+	}
+}
@@ -41,27 +41,39 @@ public class SpringSystem {
 	
 	private float x;                        // position of the mass
 	private float v;                        // velocity
-	private float xe;                       // final position of x (depends on k)
-	private float d = 1f;                   // dampening of the 1st damper (customizable)
-	private float k = 4.25f;                // stiffness of the 1st spring (customizable)
-	private boolean u = false;              // position of bottom board (false -> A, true -> B), x will approach xe / 0 for for u == true / u == false  
+	private SpringConfig config;            // stiffness k and dampening d of the 1st spring/damper, final position xe (customizable)
+	private float target = 0;               // position of bottom board in units of du (0 -> A, 1 -> B), x will approach target * xe
 	
 	
 	/**
-	 * Initializes a SpringSystem in the respective position.
+	 * Initializes a SpringSystem with the {@link SpringConfig#DEFAULT default config} in the respective position.
 	 * @param initialState	whether x starts from 0 or xe
 	 */
 	public SpringSystem(boolean initialState){
-		this.u = initialState;
-		updateXe();
+		this(SpringConfig.DEFAULT, initialState);
+	}
+	
+	/**
+	 * Initializes a SpringSystem in the respective position.
+	 * @param config		stiffness and dampening of the system
+	 * @param initialState	whether x starts from 0 or xe
+	 */
+	public SpringSystem(SpringConfig config, boolean initialState){
+		this.config = config;
+		this.target = initialState ? 1 : 0;
 		
 		// setting respective initial conditions
 		v = 0;
-		x = u ? xe : 0;
+		x = target * config.getXe();
 	}
 	
-	private void updateXe(){
-		xe = kf / (k + kf) * du;
+	/**
+	 * Final position of x for a given stiffness.
+	 * @param k			stiffness of the variable spring
+	 * @return			xe
+	 */
+	static float computeXe(float k){
+		return kf / (k + kf) * du;
 	}
 	
 	/**
@@ -75,7 +87,7 @@ public class SpringSystem {
 		// ODE: v' = -v * [(df + d) / m)] - x * [(kf + k) / m] + u * kf/m
 		// -> returns acceleration
 		// -> no t argument necessary, because f(t) = u * kf/m depends on current status of u
-		return -v * (df + d) / m - x * (kf + k) / m + u * ku;
+		return -v * (df + config.getDampening()) / m - x * (kf + config.getStiffness()) / m + u * ku;
 	}
 	
 	/**
@@ -84,7 +96,7 @@ public class SpringSystem {
 	 * @return			x at t
 	 */
 	public float updateSystem(float h){
-		float tu = u ? du  : 0 ;
+		float tu = target * du;
 		
 		// explicit-Runge-Kutta-4 coefficients for 2nd-order ode
 		float kx1, kx2, kx3, kx4;
@@ -117,6 +129,14 @@ public class SpringSystem {
 		return v;
 	}
 	
+	/**
+	 * Set the velocity, e.g. to continue the motion of a fling gesture.
+	 * @param v			velocity
+	 */
+	public void setV(float v){
+		this.v = v;
+	}
+	
 	/**
 	 * @return			current position x
 	 */
@@ -128,7 +148,19 @@ public class SpringSystem {
 	 * @return			current final position for x (depends on k)
 	 */
 	public float getXe(){
-		return xe;
+		return config.getXe();
+	}
+	
+	/**
+	 * Replace stiffness and dampening at once.
+	 * @param config	new parameters of the system
+	 */
+	public void setConfig(SpringConfig config){
+		this.config = config;
+	}
+	
+	public SpringConfig getConfig(){
+		return config;
 	}
 	
 	/**
@@ -136,11 +168,11 @@ public class SpringSystem {
 	 * @param d			dampening
 	 */
 	public void setD(float d){
-		this.d = d;
+		config = config.withDampening(d);
 	}
 	
 	public float getD(){
-		return d;
+		return config.getDampening();
 	}
 	
 	/**
@@ -148,20 +180,18 @@ public class SpringSystem {
 	 * @param k			stiffness
 	 */
 	public void setK(float k){
-		this.k = k;
-		
-		// important: final position depends on k
-		updateXe();
+		// important: final position depends on k (updated by the config)
+		config = config.withStiffness(k);
 	}
 	
 	public float getK(){
-		return k;
+		return config.getStiffness();
 	}
 	
 	/**
 	 * Set the final position for the system. This initiates a motion which results in the system
 	 * reaching the final position (0 for u == false or xe for u == true), if it is not already there.
-	 * @param u			timestep
+	 * @param u			final position
 	 */
 	public void setU(boolean u){
 		setU(u, false);
@@ -170,21 +200,41 @@ public class SpringSystem {
 	/**
 	 * Set the final position for the system. This initiates a motion which results in the system
 	 * reaching the final position (0 for u == false or xe for u == true), if it is not already there.
-	 * @param u						timestep
+	 * @param u						final position
 	 * @param skipDynamicBehaviour	set the system instantly to its final position (-> no motion)
 	 */
 	public void setU(boolean u, boolean skipDynamicBehaviour){
-		this.u = u;
+		setTarget(u ? 1 : 0, skipDynamicBehaviour);
+	}
+	
+	/**
+	 * @return			true if the target is closer to the "top" (xe) than to the "bottom" (0)
+	 */
+	public boolean getU(){
+		return target > 0.5f;
+	}
+	
+	/**
+	 * Set an arbitrary final position. x approaches target * xe, position and velocity stay continuous,
+	 * so the target can be changed at any time (e.g. to follow a drag gesture).
+	 * @param target				final position in units of xe (0 ~ bottom, 1 ~ top)
+	 * @param skipDynamicBehaviour	set the system instantly to its final position (-> no motion)
+	 */
+	public void setTarget(float target, boolean skipDynamicBehaviour){
+		this.target = target;
 		
 		// means transient oscillations are over -> system instantly is in a steady-state
 		if(skipDynamicBehaviour){
 			// setting values respectively to avoid transient dynamics
 			v = 0;
-			x = u ? xe : 0;
+			x = target * config.getXe();
 		}
 	}
 	
-	public boolean getU(){
-		return u;
+	/**
+	 * @return			final position in units of xe
+	 */
+	public float getTarget(){
+		return target;
 	}
 }
@@ -0,0 +1,109 @@
+package de.osanj.springinterpolator;
+
+/**
+ * Wraps an {@link OnSpringUpdateListener} and only forwards updates which are a meaningful change, e.g. a different
+ * pixel. Especially in the long tail of the motion, before the idle state is detected, most updates differ by far
+ * less than what can be seen, so filtering them saves the consumer lots of repaints. The simulation itself is not
+ * affected. {@link OnSpringUpdateListener#onSpringFinalPosition onSpringFinalPosition} is always forwarded.
+ * <br>
+ * <br>
+ * A filter keeps the last forwarded value, so use one filter per interpolator. It can be removed with either itself
+ * or the wrapped listener (see {@link SpringInterpolator#removeListener(OnSpringUpdateListener) removeListener}).
+ * <br>
+ * <br>
+ * <u>How To Use:</u>
+ * <br>
+ * <pre>// square grows from 200px to 300px -> only notify if the size changes by at least one pixel
+ *interpolator.addListener(SpringUpdateFilter.quantized(button, 100));
+ * </pre>
+ */
+public final class SpringUpdateFilter implements OnSpringUpdateListener {
+	
+	private final OnSpringUpdateListener listener;
+	private final float epsilon;       // minimal difference to the last forwarded value, 0 if quantized
+	private final int steps;           // amount of steps per interpolated unit, 0 if not quantized
+	private float lastValue;
+	private int lastStep;
+	private boolean forwarded;         // whether there is a last value (or step) to compare with
+	
+	
+	private SpringUpdateFilter(OnSpringUpdateListener listener, float epsilon, int steps) {
+		if(listener == null){
+			throw new NullPointerException("listener must not be null");
+		}
+		
+		this.listener = listener;
+		this.epsilon = epsilon;
+		this.steps = steps;
+		forwarded = false;
+	}
+	
+	/**
+	 * Only forwards an update if the value differs by at least <code>epsilon</code> from the last forwarded one.
+	 * @param listener		receiver of the filtered updates
+	 * @param epsilon		minimal change of the interpolated value (must be positive)
+	 * @return the filtering listener
+	 */
+	public static SpringUpdateFilter byDelta(OnSpringUpdateListener listener, float epsilon){
+		if(!(epsilon > 0)){
+			throw new IllegalArgumentException("epsilon must be positive: " + epsilon);
+		}
+		
+		return new SpringUpdateFilter(listener, epsilon, 0);
+	}
+	
+	/**
+	 * Only forwards an update if the value maps to a different integer in <code>value * steps</code> (rounded down)
+	 * than the last forwarded one. Values outside of 0..1 (overshoot) are not clamped, so the bounce stays visible.
+	 * @param listener		receiver of the filtered updates
+	 * @param steps			amount of distinguishable steps between 0 and 1, e.g. the range in pixels (must be positive)
+	 * @return the filtering listener
+	 */
+	public static SpringUpdateFilter quantized(OnSpringUpdateListener listener, int steps){
+		if(steps <= 0){
+			throw new IllegalArgumentException("steps must be positive: " + steps);
+		}
+		
+		return new SpringUpdateFilter(listener, 0, steps);
+	}
+	
+	/**
+	 * @return the wrapped listener
+	 */
+	public OnSpringUpdateListener getListener(){
+		return listener;
+	}
+	
+	@Override
+	public void onSpringUpdate(SpringInterpolator interpolator, float interpolatedValue){
+		if(steps > 0){
+			int step = (int) Math.floor(interpolatedValue * steps);
+			
+			if(forwarded && step == lastStep){
+				return;
+			}
+			
+			lastStep = step;
+			
+		}else{
+			if(forwarded && Math.abs(interpolatedValue - lastValue) < epsilon){
+				return;
+			}
+			
+			lastValue = interpolatedValue;
+		}
+		
+		forwarded = true;
+		listener.onSpringUpdate(interpolator, interpolatedValue);
+	}
+	
+	@Override
+	public void onSpringFinalPosition(SpringInterpolator interpolator, float finalInterpolatedValue, boolean finalPosition){
+		// the next motion starts from the final value
+		lastValue = finalInterpolatedValue;
+		lastStep = (int) Math.floor(finalInterpolatedValue * steps);
+		forwarded = true;
+		
+		listener.onSpringFinalPosition(interpolator, finalInterpolatedValue, finalPosition);
+	}
+}
@@ -0,0 +1,363 @@
+package de.osanj.springinterpolator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Publishes the state of interpolators into a memory-mapped file, so consumers in other processes (e.g. a compositor)
+ * can read the current values without any copy, serialization or socket. Each registered interpolator gets a fixed
+ * slot, which is rewritten on every update. A {@link Reader} takes consistent snapshots of a slot without locking.
+ * <br>
+ * <br>
+ * <b>Layout</b> (big-endian)
+ * <pre>header (16 bytes):  int magic, int version, int slotCount, int slotSize
+ *slot i (16 bytes):  int sequence, int flags, float interpolatedValue, float velocity
+ * </pre>
+ * Each slot is guarded by a seqlock: the sequence is odd while the slot is written and increased by 2 with every
+ * update. A reader retries if the sequence was odd or changed while reading. Flags are
+ * {@value #FLAG_REGISTERED} (slot in use), {@value #FLAG_FINAL_POSITION} (final position "top") and
+ * {@value #FLAG_IDLE} (idle state reached).
+ * <br>
+ * <br>
+ * <u>How To Use:</u>
+ * <br>
+ * <pre>// owning process
+ *SpringValueBoard board = new SpringValueBoard(new File("/dev/shm/springs"), 1024);
+ *int slot = board.register(interpolator);
+ *
+ * // other process
+ *SpringValueBoard.Reader reader = new SpringValueBoard.Reader(new File("/dev/shm/springs"));
+ *SpringValueBoard.Snapshot snapshot = new SpringValueBoard.Snapshot();
+ *reader.read(slot, snapshot);
+ * </pre>
+ */
+public class SpringValueBoard {
+	
+	public static final int FLAG_REGISTERED = 1;
+	public static final int FLAG_FINAL_POSITION = 2;
+	public static final int FLAG_IDLE = 4;
+	
+	static final int MAGIC = 0x53505242;           // "SPRB"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int SLOT_SIZE = 16;
+	
+	private static final int SEQUENCE = 0;         // offsets within a slot
+	private static final int FLAGS = 4;
+	private static final int VALUE = 8;
+	private static final int VELOCITY = 12;
+	
+	private final RandomAccessFile file;
+	private final MappedByteBuffer buffer;
+	private final int slotCount;
+	private final SlotWriter[] writers;            // guarded by this
+	private final Deque<Integer> freeSlots;        // guarded by this
+	private int nextSlot;                          // guarded by this
+	
+	
+	/**
+	 * Creates (or overwrites) the board file with the given amount of slots.
+	 * @param path			file to map, preferably on a memory file system like /dev/shm
+	 * @param slotCount		maximal amount of registered interpolators
+	 * @throws IOException	if the file cannot be created or mapped
+	 */
+	public SpringValueBoard(File path, int slotCount) throws IOException {
+		if(slotCount <= 0){
+			throw new IllegalArgumentException("slotCount must be positive: " + slotCount);
+		}
+		
+		int size = HEADER_SIZE + slotCount * SLOT_SIZE;
+		
+		this.slotCount = slotCount;
+		file = new RandomAccessFile(path, "rw");
+		file.setLength(0);
+		file.setLength(size);
+		buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		writers = new SlotWriter[slotCount];
+		freeSlots = new ArrayDeque<Integer>();
+		nextSlot = 0;
+		
+		// header is written last, readers can rely on a valid magic
+		buffer.putInt(4, VERSION);
+		buffer.putInt(8, slotCount);
+		buffer.putInt(12, SLOT_SIZE);
+		buffer.putInt(0, MAGIC);
+	}
+	
+	public int getSlotCount(){
+		return slotCount;
+	}
+	
+	/**
+	 * Assigns a slot to the interpolator and publishes its state on every update from now on.
+	 * @param interpolator	interpolator to publish
+	 * @return index of the slot
+	 * @throws IllegalStateException	if all slots are in use
+	 */
+	public synchronized int register(SpringInterpolator interpolator){
+		int slot;
+		
+		if(!freeSlots.isEmpty()){
+			slot = freeSlots.pop();
+			
+		}else if(nextSlot < slotCount){
+			slot = nextSlot++;
+			
+		}else{
+			throw new IllegalStateException("all " + slotCount + " slots are in use");
+		}
+		
+		SlotWriter writer = new SlotWriter(HEADER_SIZE + slot * SLOT_SIZE);
+		writers[slot] = writer;
+		
+		// initial state, later ones are written by the thread updating the interpolator
+		synchronized(writer){
+			writer.write(interpolator.getCurrentInterpolatedValue(), interpolator.getCurrentVelocity(),
+					flags(interpolator.getFinalPosition(), interpolator.reachedFinalPositionPermanently()));
+		}
+		
+		interpolator.addListener(writer);
+		return slot;
+	}
+	
+	/**
+	 * Stops publishing the interpolator of the slot and frees the slot for the next registration.
+	 * @param interpolator	registered interpolator
+	 * @param slot			its slot
+	 */
+	public synchronized void unregister(SpringInterpolator interpolator, int slot){
+		SlotWriter writer = writers[slot];
+		
+		if(writer != null){
+			interpolator.removeListener(writer);
+			writers[slot] = null;
+			
+			// the looper may still dispatch to the writer, it must not touch the slot once it is reused
+			synchronized(writer){
+				writer.closed = true;
+				writer.write(0, 0, 0);
+			}
+			
+			freeSlots.push(slot);
+		}
+	}
+	
+	/**
+	 * Closes the file. The mapping itself is released by the garbage collector.
+	 * @throws IOException	if closing fails
+	 */
+	public void close() throws IOException {
+		file.close();
+	}
+	
+	private static int flags(boolean finalPosition, boolean idle){
+		return FLAG_REGISTERED | (finalPosition ? FLAG_FINAL_POSITION : 0) | (idle ? FLAG_IDLE : 0);
+	}
+	
+	
+	/*
+	 * Single writer of a slot. Updates of an interpolator arrive from one thread at a time (its looper), the monitor
+	 * only serializes them with (un)registration.
+	 */
+	private class SlotWriter implements OnSpringUpdateListener {
+		
+		private final int offset;
+		private int sequence;
+		private volatile int barrier;
+		private boolean closed;                    // unregistered, guarded by this
+		
+		SlotWriter(int offset) {
+			this.offset = offset;
+			this.sequence = buffer.getInt(offset + SEQUENCE);
+		}
+		
+		@Override
+		public synchronized void onSpringUpdate(SpringInterpolator interpolator, float interpolatedValue){
+			if(closed){
+				return;
+			}
+			
+			write(interpolatedValue, interpolator.getCurrentVelocity(), flags(interpolator.getFinalPosition(), false));
+		}
+		
+		@Override
+		public synchronized void onSpringFinalPosition(SpringInterpolator interpolator, float finalInterpolatedValue,
+				boolean finalPosition){
+			if(closed){
+				return;
+			}
+			
+			write(finalInterpolatedValue, 0, flags(finalPosition, true));
+		}
+		
+		void write(float interpolatedValue, float velocity, int flags){
+			// odd sequence -> readers retry
+			sequence |= 1;
+			buffer.putInt(offset + SEQUENCE, sequence);
+			fence();
+			
+			buffer.putInt(offset + FLAGS, flags);
+			buffer.putFloat(offset + VALUE, interpolatedValue);
+			buffer.putFloat(offset + VELOCITY, velocity);
+			fence();
+			
+			sequence++;
+			buffer.putInt(offset + SEQUENCE, sequence);
+		}
+		
+		/*
+		 * A volatile write followed by a volatile read keeps the plain buffer accesses before and after it
+		 * in order (Java 7 has no explicit fences)
+		 */
+		private void fence(){
+			barrier = sequence;
+			sequence = barrier;
+		}
+	}
+	
+	/**
+	 * Mutable holder for the state of a slot, can be reused for every read.
+	 */
+	public static final class Snapshot {
+		
+		int sequence;
+		int flags;
+		float interpolatedValue;
+		float velocity;
+		
+		/**
+		 * @return			sequence of the snapshot, increases by 2 with every update of the slot
+		 */
+		public int getSequence(){
+			return sequence;
+		}
+		
+		public boolean isRegistered(){
+			return (flags & FLAG_REGISTERED) != 0;
+		}
+		
+		/**
+		 * @return			final position (false ~ "bottom", true ~ "top")
+		 */
+		public boolean getFinalPosition(){
+			return (flags & FLAG_FINAL_POSITION) != 0;
+		}
+		
+		/**
+		 * @return			true if the interpolator reached its idle state
+		 */
+		public boolean isIdle(){
+			return (flags & FLAG_IDLE) != 0;
+		}
+		
+		public float getInterpolatedValue(){
+			return interpolatedValue;
+		}
+		
+		/**
+		 * @return			velocity in interpolated units per second (real-time)
+		 */
+		public float getVelocity(){
+			return velocity;
+		}
+	}
+	
+	/**
+	 * Read-only view of a board, usually in another process. Reading does not lock and does not allocate.
+	 */
+	public static class Reader {
+		
+		private final RandomAccessFile file;
+		private final MappedByteBuffer buffer;
+		private final int slotCount;
+		private volatile int barrier;
+		private int fenced;
+		
+		/**
+		 * @param path			file of the board
+		 * @throws IOException	if the file cannot be mapped or is no board
+		 */
+		public Reader(File path) throws IOException {
+			file = new RandomAccessFile(path, "r");
+			
+			try{
+				buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+				
+				if(file.length() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+						|| buffer.getInt(12) != SLOT_SIZE){
+					throw new IOException(path + " is no SpringValueBoard (version " + VERSION + ")");
+				}
+				
+				slotCount = buffer.getInt(8);
+				
+			}catch(IOException e){
+				file.close();
+				throw e;
+			}
+		}
+		
+		public int getSlotCount(){
+			return slotCount;
+		}
+		
+		/**
+		 * Takes a consistent snapshot of the slot, retrying while it is written.
+		 * @param slot		index of the slot
+		 * @param into		holder for the state
+		 * @return the given holder
+		 */
+		public Snapshot read(int slot, Snapshot into){
+			if(slot < 0 || slot >= slotCount){
+				throw new IndexOutOfBoundsException("slot " + slot + " of " + slotCount);
+			}
+			
+			int offset = HEADER_SIZE + slot * SLOT_SIZE;
+			int before, after;
+			int spins = 0;
+			
+			do{
+				before = buffer.getInt(offset + SEQUENCE);
+				
+				if((before & 1) != 0){
+					// writer is in the middle of an update, which only takes a few nanoseconds
+					if(++spins > 100){
+						Thread.yield();
+					}
+					
+					continue;
+				}
+				
+				fence();
+				into.flags = buffer.getInt(offset + FLAGS);
+				into.interpolatedValue = buffer.getFloat(offset + VALUE);
+				into.velocity = buffer.getFloat(offset + VELOCITY);
+				fence();
+				
+				after = buffer.getInt(offset + SEQUENCE);
+				
+				if(before == after){
+					into.sequence = before;
+					return into;
+				}
+			}while(true);
+		}
+		
+		public void close() throws IOException {
+			file.close();
+		}
+		
+		/*
+		 * Same volatile write/read pair as the writer: the plain loads before it stay before it,
+		 * the ones after it stay after it
+		 */
+		private void fence(){
+			barrier = fenced;
+			fenced = barrier;
+		}
+	}
+}
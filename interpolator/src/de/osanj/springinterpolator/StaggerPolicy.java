@@ -0,0 +1,65 @@
+package de.osanj.springinterpolator;
+
+/**
+ * Determines the delay of each member of a {@link SpringGroup} when the group is stimulated, e.g. to let a list
+ * of items follow one after another.
+ */
+public abstract class StaggerPolicy {
+	
+	/** All members start in the same frame. */
+	public static final StaggerPolicy NONE = new StaggerPolicy() {
+		@Override
+		public long delayNanos(int index, int count){
+			return 0;
+		}
+	};
+	
+	/**
+	 * Member <code>i</code> starts <code>i * stepMillis</code> after the first one.
+	 * @param stepMillis	delay between two neighbouring members in milliseconds
+	 * @return the policy
+	 */
+	public static StaggerPolicy linear(long stepMillis){
+		final long stepNanos = checkStep(stepMillis);
+		
+		return new StaggerPolicy() {
+			@Override
+			public long delayNanos(int index, int count){
+				return index * stepNanos;
+			}
+		};
+	}
+	
+	/**
+	 * The member(s) in the middle start first, the others follow according to their distance to the middle.
+	 * @param stepMillis	delay between two neighbouring members in milliseconds
+	 * @return the policy
+	 */
+	public static StaggerPolicy fromCenter(long stepMillis){
+		final long stepNanos = checkStep(stepMillis);
+		
+		return new StaggerPolicy() {
+			@Override
+			public long delayNanos(int index, int count){
+				// distance in half-steps, so both middle members of an even count start first
+				int distance = Math.abs(2 * index - (count - 1));
+				return distance / 2 * stepNanos;
+			}
+		};
+	}
+	
+	private static long checkStep(long stepMillis){
+		if(stepMillis < 0){
+			throw new IllegalArgumentException("stepMillis must not be negative: " + stepMillis);
+		}
+		
+		return stepMillis * 1000000L;
+	}
+	
+	/**
+	 * @param index		position of the member within the group
+	 * @param count		amount of members
+	 * @return delay of the member in nanoseconds (not negative)
+	 */
+	public abstract long delayNanos(int index, int count);
+}